@@ -0,0 +1,164 @@
+package ru.practicum.shareit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoByOwner;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.load.DatasetGenerator;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service methods behind the busiest read endpoints against an in-memory H2 database. The database is
+ * seeded by {@link DatasetGenerator} before the application starts, so the in-memory indexes load the
+ * seeded rows as in production. Every invocation asks for the next user, so the numbers are not those
+ * of one hot user.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ServiceBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:shareit-benchmark;DB_CLOSE_DELAY=-1";
+    private static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "bike", "camera", "kayak"};
+
+    @Param("1000")
+    private int users;
+
+    @Param("10000")
+    private int items;
+
+    @Param("50000")
+    private int bookings;
+
+    @Param("20000")
+    private int comments;
+
+    @Param("2000")
+    private int requests;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private BookingService bookingService;
+    private ItemRequestService itemRequestService;
+    private long[] userIds;
+    private long[] itemIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Spring configures logging only when it starts, the seeding before it would log every statement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, "test", "test");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        DatasetGenerator.Dataset dataset = new DatasetGenerator(dataSource, DatasetGenerator.Options.builder()
+                .users(users)
+                .items(items)
+                .bookings(bookings)
+                .comments(comments)
+                .requests(requests)
+                .build())
+                .generate();
+        userIds = dataset.getUserIds();
+        itemIds = dataset.getItemIds();
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .profiles("test")
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=" + URL,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.zalando.logbook=WARN");
+        itemService = context.getBean(ItemService.class);
+        bookingService = context.getBean(BookingService.class);
+        itemRequestService = context.getBean(ItemRequestService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDtoByOwner> getUserItems() {
+        return itemService.getUserItems(nextUser(), 0, 10, false);
+    }
+
+    @Benchmark
+    public List<ItemDtoByOwner> getUserItemsWithCommentStats() {
+        return itemService.getUserItems(nextUser(), 0, 10, true);
+    }
+
+    @Benchmark
+    public ItemDtoByOwner getItem() {
+        return itemService.getItem(nextUser(), itemIds[next % itemIds.length], false);
+    }
+
+    @Benchmark
+    public List<ItemDto> searchItems() {
+        return itemService.search(WORDS[next++ % WORDS.length], 0, 20, false);
+    }
+
+    @Benchmark
+    public List<BookingDtoOutput> getAllUserBookings() {
+        return bookingService.getAllUserBookings(nextUser(), "ALL", 0, 20);
+    }
+
+    @Benchmark
+    public List<BookingDtoOutput> getAllOwnerBookings() {
+        return bookingService.getAllOwnerBookings(nextUser(), "ALL", 0, 20);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> getUserRequests() {
+        return itemRequestService.getUserRequests(nextUser());
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> getAllRequests() {
+        return itemRequestService.getAllRequests(nextUser(), 0, 20, false);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> getAllRequestsIncludingClosed() {
+        return itemRequestService.getAllRequests(nextUser(), 100, 20, true);
+    }
+
+    private long nextUser() {
+        next = (next + 1) % userIds.length;
+        return userIds[next];
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Maps a page of bookings with {@link BookingMapper#toBookingDtoOutput} and {@link BookingMapper#toBookingDto}.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BookingMapperBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingMapperBenchmark {
+
+    @Param("1000")
+    private int bookingCount;
+
+    @Param("100")
+    private int itemCount;
+
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        User owner = User.builder().id(1L).name("owner").email("owner@mail.ru").build();
+        List<Item> items = new ArrayList<>(itemCount);
+        for (long id = 1; id <= itemCount; id++) {
+            items.add(Item.builder()
+                    .id(id)
+                    .name("item " + id)
+                    .description("description " + id)
+                    .available(true)
+                    .owner(owner)
+                    .build());
+        }
+        bookings = new ArrayList<>(bookingCount);
+        for (long id = 1; id <= bookingCount; id++) {
+            User booker = User.builder().id(id + 1).name("booker " + id).email("booker" + id + "@mail.ru").build();
+            LocalDateTime start = now.plusHours(random.nextInt(2000) - 1000);
+            bookings.add(Booking.builder()
+                    .id(id)
+                    .start(start)
+                    .end(start.plusDays(1))
+                    .item(items.get(random.nextInt(itemCount)))
+                    .booker(booker)
+                    .status(BookingStatus.APPROVED)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<BookingDtoOutput> toBookingDtoOutput() {
+        return bookings.stream()
+                .map(BookingMapper::toBookingDtoOutput)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookingDto> toBookingDto() {
+        return bookings.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the comments of an item page with {@link CommentMapper#toCommentDto(java.util.Collection)}.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="CommentMapperBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentMapperBenchmark {
+
+    @Param("1000")
+    private int commentCount;
+
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        User author = User.builder().id(2L).name("author").email("author@mail.ru").build();
+        Item item = Item.builder().id(1L).name("item").description("description").available(true).build();
+        comments = new ArrayList<>(commentCount);
+        for (long id = 1; id <= commentCount; id++) {
+            comments.add(new Comment(id, "comment " + id, item, author, now.minusMinutes(id)));
+        }
+    }
+
+    @Benchmark
+    public List<CommentDto> toCommentDto() {
+        return CommentMapper.toCommentDto(comments);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.item.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the items of one owner the way the owner's item list does: {@link ItemMapper#toItemDtoByOwner(Item,
+ * List, List)} with the owner's bookings and the comments of every item, and the plain {@link ItemMapper#toItemDto}.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ItemMapperBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemMapperBenchmark {
+
+    @Param("50")
+    private int itemCount;
+
+    @Param("200")
+    private int bookingCount;
+
+    @Param("20")
+    private int commentsPerItem;
+
+    private List<Item> items;
+    private List<Booking> bookings;
+    private Map<Long, List<Comment>> comments;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        User owner = User.builder().id(1L).name("owner").email("owner@mail.ru").build();
+        User booker = User.builder().id(2L).name("booker").email("booker@mail.ru").build();
+        items = new ArrayList<>(itemCount);
+        comments = new HashMap<>();
+        long commentId = 1;
+        for (long id = 1; id <= itemCount; id++) {
+            Item item = Item.builder()
+                    .id(id)
+                    .name("item " + id)
+                    .description("description " + id)
+                    .available(true)
+                    .owner(owner)
+                    .commentCount(commentsPerItem)
+                    .build();
+            items.add(item);
+            List<Comment> itemComments = new ArrayList<>(commentsPerItem);
+            for (int i = 0; i < commentsPerItem; i++) {
+                itemComments.add(new Comment(commentId++, "comment " + commentId, item, booker,
+                        now.minusHours(random.nextInt(1000))));
+            }
+            comments.put(id, itemComments);
+        }
+        bookings = new ArrayList<>(bookingCount);
+        for (long id = 1; id <= bookingCount; id++) {
+            LocalDateTime start = now.plusHours(random.nextInt(2000) - 1000);
+            bookings.add(Booking.builder()
+                    .id(id)
+                    .start(start)
+                    .end(start.plusDays(1))
+                    .item(items.get(random.nextInt(itemCount)))
+                    .booker(booker)
+                    .status(random.nextInt(10) == 0 ? BookingStatus.REJECTED : BookingStatus.APPROVED)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<ItemDtoByOwner> toItemDtoByOwner() {
+        return items.stream()
+                .map(item -> ItemMapper.toItemDtoByOwner(item, comments.get(item.getId()), bookings))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ItemDto> toItemDto() {
+        return ItemMapper.toItemDto(items);
+    }
+}
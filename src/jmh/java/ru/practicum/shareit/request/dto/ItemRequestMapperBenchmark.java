@@ -0,0 +1,85 @@
+package ru.practicum.shareit.request.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Groups items into requests with {@link ItemRequestMapper#toDtoWithItems(java.util.Collection,
+ * java.util.Collection)} and with the former filter-per-request approach.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ItemRequestMapperBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRequestMapperBenchmark {
+
+    @Param("1000")
+    private int requestCount;
+
+    @Param("50000")
+    private int itemCount;
+
+    private List<ItemRequest> requests;
+    private List<ItemDto> items;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        User requestor = User.builder().id(1L).name("requestor").email("requestor@mail.ru").build();
+        requests = new ArrayList<>(requestCount);
+        for (long id = 1; id <= requestCount; id++) {
+            requests.add(ItemRequest.builder()
+                    .id(id)
+                    .description("request " + id)
+                    .requestor(requestor)
+                    .created(LocalDateTime.now().minusMinutes(id))
+                    .build());
+        }
+        items = new ArrayList<>(itemCount);
+        for (long id = 1; id <= itemCount; id++) {
+            long requestId = 1 + random.nextInt(requestCount);
+            items.add(new ItemDto(id, "item " + id, "description " + id, 2L, true, requestId, null, null));
+        }
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> groupedByRequestId() {
+        return ItemRequestMapper.toDtoWithItems(requests, items);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> filteredPerRequest() {
+        return requests.stream()
+                .map(request -> {
+                    ItemRequestDto dto = ItemRequestMapper.toDto(request);
+                    dto.setItems(items.stream()
+                            .filter(item -> request.getId().equals(item.getRequestId()))
+                            .collect(Collectors.toList()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+}
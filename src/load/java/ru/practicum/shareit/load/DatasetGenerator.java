@@ -0,0 +1,245 @@
+package ru.practicum.shareit.load;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Seeds an H2 or PostgreSQL database with a synthetic dataset. Rows are inserted in JDBC batches by
+ * several threads. Owners and popular items follow a power law: a few users own most of the items, and
+ * a few items get most of the bookings and comments. Rows are added to whatever is already in the database.
+ * <p>
+ * Run with {@code mvn -Pload test-compile exec:exec -Dload.main=ru.practicum.shareit.load.DatasetGenerator
+ * -Dload.args="--url=jdbc:postgresql://localhost:5432/shareit --user=shareit --password=shareit --users=100000"}.
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    private static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "bike", "camera", "kayak",
+            "projector", "guitar", "stroller", "sander", "mixer", "tripod", "scooter", "skis"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Options options;
+
+    public DatasetGenerator(DataSource dataSource, Options options) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.options = options;
+    }
+
+    public static void main(String[] args) {
+        LoadArgs loadArgs = new LoadArgs(args);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.INFO);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                loadArgs.get("url", "jdbc:postgresql://localhost:5432/shareit"),
+                loadArgs.get("user", "shareit"),
+                loadArgs.get("password", "shareit"));
+        if (Boolean.parseBoolean(loadArgs.get("init-schema", "true"))) {
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        }
+        Options options = Options.builder()
+                .users(loadArgs.getInt("users", 10000))
+                .items(loadArgs.getInt("items", 100000))
+                .bookings(loadArgs.getInt("bookings", 500000))
+                .comments(loadArgs.getInt("comments", 200000))
+                .requests(loadArgs.getInt("requests", 20000))
+                .ownerSkew(loadArgs.getDouble("owner-skew", 1.1))
+                .itemSkew(loadArgs.getDouble("item-skew", 1.0))
+                .threads(loadArgs.getInt("threads", 4))
+                .batchSize(loadArgs.getInt("batch-size", 1000))
+                .seed(loadArgs.getInt("seed", 42))
+                .build();
+        Dataset dataset = new DatasetGenerator(dataSource, options).generate();
+        log.info("Generated {} users, {} requests and {} items", dataset.getUserIds().length,
+                dataset.getRequestIds().length, dataset.getItemIds().length);
+    }
+
+    public Dataset generate() {
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            String runId = Long.toString(System.currentTimeMillis(), 36);
+
+            long usersBefore = maxId("users");
+            insert(executor, "users", "INSERT INTO users (name, email) VALUES (?, ?)", options.getUsers(),
+                    (row, random) -> new Object[]{"user " + row, "user-" + runId + "-" + row + "@load.test"});
+            long[] userIds = ids("SELECT id FROM users WHERE id > ? ORDER BY id", usersBefore);
+
+            long requestsBefore = maxId("requests");
+            insert(executor, "requests", "INSERT INTO requests (description, requestor, create_date, status) "
+                    + "VALUES (?, ?, ?, ?)", options.getRequests(), (row, random) -> new Object[]{
+                            "need a " + word(random) + " for the weekend",
+                            userIds[random.nextInt(userIds.length)],
+                            Timestamp.valueOf(now.minusMinutes(random.nextInt(365 * 24 * 60))),
+                            random.nextInt(5) == 0 ? "FULFILLED" : "OPEN"});
+            long[] requestIds = ids("SELECT id FROM requests WHERE id > ? ORDER BY id", requestsBefore);
+
+            ZipfSampler owners = new ZipfSampler(userIds.length, options.getOwnerSkew());
+            long itemsBefore = maxId("items");
+            insert(executor, "items", "INSERT INTO items (name, description, available, owner, request, lat, lon) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)", options.getItems(), (row, random) -> {
+                        String word = word(random);
+                        Long request = requestIds.length > 0 && random.nextInt(10) == 0
+                                ? requestIds[random.nextInt(requestIds.length)] : null;
+                        return new Object[]{word + " " + row, "a good " + word + " in " + word(random) + " condition",
+                                random.nextInt(10) != 0, userIds[owners.next(random)], request,
+                                55.5 + random.nextDouble(), 37.3 + random.nextDouble()};
+                    });
+            long[] itemIds = ids("SELECT id FROM items WHERE id > ? ORDER BY id", itemsBefore);
+            long[] itemOwners = ids("SELECT owner FROM items WHERE id > ? ORDER BY id", itemsBefore);
+
+            ZipfSampler popularItems = new ZipfSampler(itemIds.length, options.getItemSkew());
+            insert(executor, "bookings", "INSERT INTO bookings (start_booking, end_booking, item, booker, status) "
+                    + "VALUES (?, ?, ?, ?, ?)", options.getBookings(), (row, random) -> {
+                        int item = popularItems.next(random);
+                        int booker = random.nextInt(userIds.length);
+                        if (userIds[booker] == itemOwners[item]) {
+                            booker = (booker + 1) % userIds.length;
+                        }
+                        LocalDateTime start = now.plusHours(random.nextInt(425 * 24) - 365 * 24);
+                        return new Object[]{Timestamp.valueOf(start),
+                                Timestamp.valueOf(start.plusHours(1 + random.nextInt(7 * 24))),
+                                itemIds[item], userIds[booker], status(random)};
+                    });
+            insert(executor, "comments", "INSERT INTO comments (text, author_id, item_id, created) VALUES (?, ?, ?, ?)",
+                    options.getComments(), (row, random) -> new Object[]{
+                            "the " + word(random) + " was " + (random.nextBoolean() ? "great" : "fine"),
+                            userIds[random.nextInt(userIds.length)],
+                            itemIds[popularItems.next(random)],
+                            Timestamp.valueOf(now.minusMinutes(random.nextInt(365 * 24 * 60)))});
+            jdbcTemplate.update("UPDATE items SET "
+                    + "comment_count = (SELECT COUNT(*) FROM comments c WHERE c.item_id = items.id), "
+                    + "last_comment_id = (SELECT MAX(c.id) FROM comments c WHERE c.item_id = items.id), "
+                    + "last_comment_at = (SELECT c.created FROM comments c "
+                    + "WHERE c.id = (SELECT MAX(m.id) FROM comments m WHERE m.item_id = items.id)) "
+                    + "WHERE id > ?", itemsBefore);
+            return new Dataset(userIds, requestIds, itemIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Inserts {@code count} rows, one batch per task. Every batch draws from its own seeded random,
+     * so the content of a row does not depend on the order the threads run in; its id does.
+     */
+    private void insert(ExecutorService executor, String table, String sql, int count,
+                        BiFunction<Integer, Random, Object[]> row) {
+        long start = System.nanoTime();
+        int batchSize = options.getBatchSize();
+        List<Future<?>> batches = new ArrayList<>();
+        for (int first = 0; first < count; first += batchSize) {
+            int from = first;
+            int to = Math.min(first + batchSize, count);
+            batches.add(executor.submit(() -> {
+                Random random = new Random(options.getSeed() * 31L + table.hashCode() * 17L + from);
+                List<Object[]> rows = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    rows.add(row.apply(i, random));
+                }
+                jdbcTemplate.batchUpdate(sql, rows);
+            }));
+        }
+        for (Future<?> batch : batches) {
+            try {
+                batch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Generation of " + table + " was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Generation of " + table + " failed", e.getCause());
+            }
+        }
+        log.info("Inserted {} rows into {} in {} ms", count, table, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private long[] ids(String sql, long after) {
+        return jdbcTemplate.queryForList(sql, Long.class, after).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String status(Random random) {
+        int draw = random.nextInt(20);
+        if (draw < 14) {
+            return "APPROVED";
+        }
+        if (draw < 17) {
+            return "WAITING";
+        }
+        return draw < 19 ? "REJECTED" : "CANCELED";
+    }
+
+    @Getter
+    @Builder
+    public static class Options {
+        @Builder.Default
+        private final int users = 10000;
+        @Builder.Default
+        private final int items = 100000;
+        @Builder.Default
+        private final int bookings = 500000;
+        @Builder.Default
+        private final int comments = 200000;
+        @Builder.Default
+        private final int requests = 20000;
+        /**
+         * Power-law exponent of item owners, 0 for uniform.
+         */
+        @Builder.Default
+        private final double ownerSkew = 1.1;
+        /**
+         * Power-law exponent of booked and commented items, 0 for uniform.
+         */
+        @Builder.Default
+        private final double itemSkew = 1.0;
+        @Builder.Default
+        private final int threads = 4;
+        @Builder.Default
+        private final int batchSize = 1000;
+        @Builder.Default
+        private final long seed = 42;
+    }
+
+    /**
+     * Ids of the generated rows in id order.
+     */
+    @Getter
+    public static class Dataset {
+        private final long[] userIds;
+        private final long[] requestIds;
+        private final long[] itemIds;
+
+        Dataset(long[] userIds, long[] requestIds, long[] itemIds) {
+            this.userIds = userIds;
+            this.requestIds = requestIds;
+            this.itemIds = itemIds;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a mixed read and write workload against a running application and reports throughput and
+ * latency percentiles per operation. Users and items are discovered through the API first; popular items
+ * are requested more often, following a power law. Requests sent during the warmup are not counted.
+ * <p>
+ * By default every thread sends its next request as soon as the previous one is answered. Such a closed
+ * loop sends less while the server stalls, so the stall shows up in one slow request instead of in all the
+ * requests that should have been sent meanwhile (coordinated omission), and its percentiles look better
+ * than what users would see. With {@code --rate} the threads send at a fixed total rate instead, and every
+ * latency is measured from the time the request was scheduled to go out, so falling behind counts too.
+ * <p>
+ * Run with {@code mvn -Pload test-compile exec:exec -Dload.main=ru.practicum.shareit.load.LoadRunner
+ * -Dload.args="--base-url=http://localhost:8080 --threads=16 --duration=60 --rate=2000"}.
+ */
+@Slf4j
+public class LoadRunner {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "bike", "camera", "kayak"};
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final int threads;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int sampleUsers;
+    private final double itemSkew;
+    private final double rate;
+
+    private long[] userIds;
+    private long[] itemIds;
+    private ZipfSampler popularItems;
+    private long[] bookableItemIds;
+    private long[] bookableItemOwners;
+    private ZipfSampler popularBookableItems;
+
+    /**
+     * @param rate requests per second over all threads, or 0 for a closed loop
+     */
+    public LoadRunner(String baseUrl, int threads, int durationSeconds, int warmupSeconds, int sampleUsers,
+                      double itemSkew, double rate) {
+        this.baseUrl = baseUrl;
+        this.threads = threads;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.sampleUsers = sampleUsers;
+        this.itemSkew = itemSkew;
+        this.rate = rate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadArgs loadArgs = new LoadArgs(args);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.INFO);
+        new LoadRunner(loadArgs.get("base-url", "http://localhost:8080"),
+                loadArgs.getInt("threads", 16),
+                loadArgs.getInt("duration", 60),
+                loadArgs.getInt("warmup", 10),
+                loadArgs.getInt("sample-users", 1000),
+                loadArgs.getDouble("item-skew", 1.0),
+                loadArgs.getDouble("rate", 0))
+                .run();
+    }
+
+    public void run() throws Exception {
+        discover();
+        List<Map<Operation, Recorder>> results = new ArrayList<>(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (int i = 0; i < threads; i++) {
+            Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                recorders.put(operation, new Recorder());
+            }
+            results.add(recorders);
+            Thread thread = new Thread(() -> {
+                try {
+                    work(recorders, measureFrom, measureTo);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        log.info("Running {} threads {} for {} s after a {} s warmup", threads,
+                rate > 0 ? "at " + rate + " requests/s" : "in a closed loop", durationSeconds, warmupSeconds);
+        done.await();
+        report(results);
+    }
+
+    /**
+     * Collects user ids by paging /users and item ids from the item lists of those users. Bookings are only
+     * made for available items, and never by their owner, so they are not rejected up front.
+     */
+    private void discover() throws IOException, InterruptedException {
+        List<Long> users = new ArrayList<>();
+        long after = 0;
+        while (users.size() < sampleUsers) {
+            JsonNode page = get("/users?size=1000&after=" + after, null);
+            if (page.size() == 0) {
+                break;
+            }
+            for (JsonNode user : page) {
+                users.add(user.get("id").asLong());
+            }
+            after = users.get(users.size() - 1);
+        }
+        List<Long> items = new ArrayList<>();
+        List<Long> bookableItems = new ArrayList<>();
+        List<Long> bookableItemOwnerIds = new ArrayList<>();
+        for (Long user : users.subList(0, Math.min(users.size(), sampleUsers))) {
+            for (JsonNode item : get("/items?size=100&commentStats=true", user)) {
+                items.add(item.get("id").asLong());
+                if (item.path("available").asBoolean()) {
+                    bookableItems.add(item.get("id").asLong());
+                    bookableItemOwnerIds.add(user);
+                }
+            }
+        }
+        if (users.size() < 2 || bookableItems.isEmpty()) {
+            throw new IllegalStateException("Seed the database with DatasetGenerator first");
+        }
+        userIds = users.stream().mapToLong(Long::longValue).toArray();
+        itemIds = items.stream().mapToLong(Long::longValue).toArray();
+        popularItems = new ZipfSampler(itemIds.length, itemSkew);
+        bookableItemIds = bookableItems.stream().mapToLong(Long::longValue).toArray();
+        bookableItemOwners = bookableItemOwnerIds.stream().mapToLong(Long::longValue).toArray();
+        popularBookableItems = new ZipfSampler(bookableItemIds.length, itemSkew);
+        log.info("Discovered {} users and {} items, {} of them available", userIds.length, itemIds.length,
+                bookableItemIds.length);
+    }
+
+    private JsonNode get(String path, Long userId) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (userId != null) {
+            request.header(USER_ID_HEADER, String.valueOf(userId));
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " answered " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * In the open loop a thread owns every threads-th slot of the schedule, so the threads together send at
+     * the given rate. A request that could not go out on time is sent at once, and its wait is counted.
+     */
+    private void work(Map<Operation, Recorder> recorders, long measureFrom, long measureTo) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * threads / rate) : 0;
+        long now = System.nanoTime();
+        long scheduled = now + (interval > 0 ? random.nextLong(interval) : 0);
+        while (now < measureTo) {
+            if (interval > 0) {
+                while (now < scheduled) {
+                    LockSupport.parkNanos(scheduled - now);
+                    now = System.nanoTime();
+                }
+                now = scheduled;
+                scheduled += interval;
+            }
+            Operation operation = Operation.pick(random);
+            HttpRequest request = operation.request(this, random);
+            boolean ok;
+            try {
+                ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long end = System.nanoTime();
+            if (now >= measureFrom) {
+                recorders.get(operation).record(end - now, ok);
+            }
+            now = end;
+        }
+    }
+
+    private void report(List<Map<Operation, Recorder>> results) {
+        System.out.printf("%-16s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Recorder total = new Recorder();
+        for (Operation operation : Operation.values()) {
+            Recorder merged = new Recorder();
+            results.forEach(recorders -> merged.add(recorders.get(operation)));
+            total.add(merged);
+            print(operation.name().toLowerCase(), merged);
+        }
+        print("total", total);
+    }
+
+    private void print(String name, Recorder recorder) {
+        long[] latencies = recorder.sorted();
+        StringBuilder line = new StringBuilder(String.format("%-16s %9d %8d %9.1f", name, latencies.length,
+                recorder.errors, latencies.length / (double) durationSeconds));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" %9.2f", millis(percentile(latencies, percentile))));
+        }
+        line.append(String.format(" %9.2f", millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1])));
+        System.out.println(line);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private long user(ThreadLocalRandom random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    private long item(ThreadLocalRandom random) {
+        return itemIds[popularItems.next(random)];
+    }
+
+    /**
+     * An available item and a user who does not own it.
+     */
+    private long[] booking(ThreadLocalRandom random) {
+        int item = popularBookableItems.next(random);
+        int booker = random.nextInt(userIds.length);
+        if (userIds[booker] == bookableItemOwners[item]) {
+            booker = (booker + 1) % userIds.length;
+        }
+        return new long[]{bookableItemIds[item], userIds[booker]};
+    }
+
+    private HttpRequest.Builder request(String path, long userId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header(USER_ID_HEADER, String.valueOf(userId));
+    }
+
+    private HttpRequest post(String path, long userId, String json) {
+        return request(path, userId)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /**
+     * The workload mix; the weights are relative shares of requests.
+     */
+    private enum Operation {
+        USER_ITEMS(20) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/items?from=0&size=10", runner.user(random)).GET().build();
+            }
+        },
+        ITEM(25) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/items/" + runner.item(random), runner.user(random)).GET().build();
+            }
+        },
+        SEARCH(12) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/items/search?from=0&size=20&text=" + WORDS[random.nextInt(WORDS.length)],
+                        runner.user(random)).GET().build();
+            }
+        },
+        USER_BOOKINGS(10) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/bookings?state=ALL&from=0&size=20", runner.user(random)).GET().build();
+            }
+        },
+        OWNER_BOOKINGS(10) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/bookings/owner?state=ALL&from=0&size=20", runner.user(random)).GET().build();
+            }
+        },
+        REQUEST_FEED(10) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/requests/all?from=0&size=20", runner.user(random)).GET().build();
+            }
+        },
+        USER_REQUESTS(5) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.request("/requests", runner.user(random)).GET().build();
+            }
+        },
+        CREATE_BOOKING(6) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                LocalDateTime start = LocalDateTime.now().plusDays(1 + random.nextInt(60)).truncatedTo(ChronoUnit.SECONDS);
+                long[] booking = runner.booking(random);
+                return runner.post("/bookings", booking[1], String.format(
+                        "{\"itemId\":%d,\"start\":\"%s\",\"end\":\"%s\"}", booking[0], start,
+                        start.plusDays(1 + random.nextInt(7))));
+            }
+        },
+        CREATE_REQUEST(2) {
+            @Override
+            HttpRequest request(LoadRunner runner, ThreadLocalRandom random) {
+                return runner.post("/requests", runner.user(random), String.format(
+                        "{\"description\":\"need a %s\"}", WORDS[random.nextInt(WORDS.length)]));
+            }
+        };
+
+        private static final int TOTAL_WEIGHT = Arrays.stream(values()).mapToInt(operation -> operation.weight).sum();
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        abstract HttpRequest request(LoadRunner runner, ThreadLocalRandom random);
+
+        static Operation pick(ThreadLocalRandom random) {
+            int draw = random.nextInt(TOTAL_WEIGHT);
+            for (Operation operation : values()) {
+                draw -= operation.weight;
+                if (draw < 0) {
+                    return operation;
+                }
+            }
+            throw new IllegalStateException("Weights do not add up");
+        }
+    }
+
+    /**
+     * Latencies in nanoseconds of one operation, written by one thread.
+     */
+    private static class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void add(Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
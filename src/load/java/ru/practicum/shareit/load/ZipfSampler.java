@@ -0,0 +1,31 @@
+package ru.practicum.shareit.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws indexes 0..n-1 with a power-law skew: index k is drawn with a weight of 1 / (k + 1)^exponent,
+ * so a few low indexes get most of the draws. An exponent of 0 draws uniformly.
+ */
+class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Nothing to sample from");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+    }
+
+    int next(Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
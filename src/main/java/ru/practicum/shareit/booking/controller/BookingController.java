@@ -3,13 +3,16 @@ package ru.practicum.shareit.booking.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 
@@ -42,15 +45,30 @@ public class BookingController {
 
     @GetMapping("/{bookingId}")
     public BookingDtoOutput booking(@RequestHeader(USER_ID_HEADER) Long userId,
-                                    @PathVariable Long bookingId) {
+                                    @PathVariable Long bookingId,
+                                    WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingService.getBookingEtag(userId, bookingId))) {
+            return null;
+        }
         return bookingService.getBooking(userId, bookingId);
     }
 
+    @GetMapping(params = "ids")
+    public MultiGetResponse<BookingDtoOutput> bookingsByIds(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                            @Size(max = MultiGetResponse.MAX_IDS)
+                                                            @RequestParam List<Long> ids) {
+        return bookingService.getBookings(userId, ids);
+    }
+
     @GetMapping
     public List<BookingDtoOutput> allUserBookings(@RequestHeader(USER_ID_HEADER) Long userId,
                                                   @RequestParam(required = false, defaultValue = "ALL") String state,
                                                   @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                                  @Positive @RequestParam(defaultValue = "10") int size) {
+                                                  @Positive @RequestParam(defaultValue = "10") int size,
+                                                  WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingService.getUserBookingsEtag(userId, state, from, size))) {
+            return null;
+        }
         return bookingService.getAllUserBookings(userId, state, from, size);
     }
 
@@ -58,7 +76,11 @@ public class BookingController {
     public List<BookingDtoOutput> allOwnerBookings(@RequestHeader(USER_ID_HEADER) Long userId,
                                                    @RequestParam(required = false, defaultValue = "ALL") String state,
                                                    @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                                   @Positive @RequestParam(defaultValue = "10") int size) {
+                                                   @Positive @RequestParam(defaultValue = "10") int size,
+                                                   WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingService.getOwnerBookingsEtag(userId, state, from, size))) {
+            return null;
+        }
         return bookingService.getAllOwnerBookings(userId, state, from, size);
     }
 }
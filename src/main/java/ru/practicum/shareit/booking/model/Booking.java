@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.user.model.User;
@@ -41,4 +42,8 @@ public class Booking {
 
     @Enumerated(EnumType.STRING)
     private BookingStatus status = BookingStatus.WAITING;
+
+    @UpdateTimestamp
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
 }
@@ -1,12 +1,15 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.repository.ItemEventCount;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +37,29 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findByItem_IdAndItemOwnerId(Long itemId, Long itemOwnerId);
 
-    Optional<Booking> findTopByStatusNotLikeAndBookerIdAndItemId(BookingStatus status, Long bookerId, Long itemId, Sort sort);
+    List<Booking> findByItem_IdInAndItemOwnerId(Collection<Long> itemIds, Long itemOwnerId);
+
+    @Query("select b from Booking b join fetch b.item i join fetch b.booker u " +
+            "where b.id in :ids and (u.id = :userId or i.owner.id = :userId)")
+    List<Booking> findVisibleByIdIn(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    boolean existsByBookerIdAndItemIdAndStatusNotAndEndBefore(Long bookerId, Long itemId, BookingStatus status,
+                                                              LocalDateTime end);
+
+    boolean existsByBookerIdAndItemIdAndStatusNot(Long bookerId, Long itemId, BookingStatus status);
+
+    @Query("select b.lastModified as lastModified, i.lastModified as itemLastModified, " +
+            "u.lastModified as bookerLastModified, i.owner.id as ownerId, u.id as bookerId " +
+            "from Booking b join b.item i join b.booker u where b.id = :bookingId")
+    Optional<BookingVersion> findVersionById(@Param("bookingId") Long bookingId);
+
+    @Query("select distinct b.booker.id from Booking b where b.item.id = :itemId")
+    List<Long> findBookerIdsByItemId(@Param("itemId") Long itemId);
+
+    @Query("select b.item.id as itemId, count(b) as events from Booking b " +
+            "where b.status = :status and b.end > :from and b.end <= :to group by b.item.id")
+    List<ItemEventCount> countEndedByItem(@Param("status") BookingStatus status,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
 
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.repository;
+
+import java.time.LocalDateTime;
+
+public interface BookingVersion {
+
+    LocalDateTime getLastModified();
+
+    LocalDateTime getItemLastModified();
+
+    LocalDateTime getBookerLastModified();
+
+    Long getOwnerId();
+
+    Long getBookerId();
+
+}
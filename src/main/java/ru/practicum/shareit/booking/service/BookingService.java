@@ -2,7 +2,9 @@ package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingService {
@@ -14,9 +16,21 @@ public interface BookingService {
 
     BookingDtoOutput getBooking(Long userId, Long bookingId);
 
+    /**
+     * Bookings with the given ids in the requested order. Bookings the user neither made nor owns
+     * the item of are reported as missing, like unknown ids.
+     */
+    MultiGetResponse<BookingDtoOutput> getBookings(Long userId, Collection<Long> bookingIds);
+
     List<BookingDtoOutput> getAllUserBookings(Long userId, String status, int from, int size);
 
     List<BookingDtoOutput> getAllOwnerBookings(Long userId, String status, int from, int size);
 
+    String getBookingEtag(Long userId, Long bookingId);
+
+    String getUserBookingsEtag(Long userId, String status, int from, int size);
+
+    String getOwnerBookingsEtag(Long userId, String status, int from, int size);
+
 
 }
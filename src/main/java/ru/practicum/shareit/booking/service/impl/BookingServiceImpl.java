@@ -11,6 +11,7 @@ import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingVersion;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
@@ -19,9 +20,13 @@ import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.utils.ChangeTracker;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,14 +38,18 @@ public class BookingServiceImpl implements BookingService {
 
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceValidator userExistenceValidator;
     private final BookingRepository bookingRepository;
+    private final ChangeTracker changeTracker;
+    private final CompletedRentalCache completedRentalCache;
 
     @Transactional
     @Override
     public BookingDtoOutput add(Long userId, BookingDto bookingDto) {
         checkDateTimeInterval(bookingDto.getStart(), bookingDto.getEnd());
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        Item item = itemRepository.findById(bookingDto.getItemId()).orElseThrow(() -> new EntityNotFoundException("Item not found."));
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Item item = itemRepository.findByIdAndOwnerDeletedAtIsNull(bookingDto.getItemId())
+                .orElseThrow(() -> new EntityNotFoundException("Item not found."));
         if (userId.equals(item.getOwner().getId())) {
             throw new EntityNotFoundException("Booker is an owner");
         }
@@ -49,6 +58,7 @@ public class BookingServiceImpl implements BookingService {
         }
         Booking saveBooking = bookingRepository.save(BookingMapper.toBooking(bookingDto, user, item));
         log.info("Booker {} add booking {}.", userId, saveBooking);
+        bookingChanged(saveBooking);
         return BookingMapper.toBookingDtoOutput(saveBooking);
     }
 
@@ -74,6 +84,8 @@ public class BookingServiceImpl implements BookingService {
             log.info("Owner {} not approve booking {}. ", userId, bookingId);
         }
         bookingRepository.save(booking);
+        completedRentalCache.invalidate(booking.getBooker().getId());
+        bookingChanged(booking);
         return BookingMapper.toBookingDtoOutput(booking);
     }
 
@@ -90,13 +102,26 @@ public class BookingServiceImpl implements BookingService {
         return BookingMapper.toBookingDtoOutput(booking);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResponse<BookingDtoOutput> getBookings(Long userId, Collection<Long> bookingIds) {
+        userExistenceValidator.validate(userId);
+        Collection<Long> ids = MultiGetResponse.distinct(bookingIds);
+        List<BookingDtoOutput> bookings = ids.isEmpty() ? List.of() : bookingRepository.findVisibleByIdIn(ids, userId)
+                .stream()
+                .map(BookingMapper::toBookingDtoOutput)
+                .collect(Collectors.toList());
+        log.info("User {} getting bookings {}", userId, ids);
+        return MultiGetResponse.of(ids, bookings, BookingDtoOutput::getId);
+    }
+
     @Transactional
     @Override
     public List<BookingDtoOutput> getAllUserBookings(Long userId, String status, int from, int size) {
         checkEnumExist(status);
         LocalDateTime now = LocalDateTime.now();
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.DESC, "start"));
-        userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        userExistenceValidator.validate(userId);
         List<Booking> bookings = new ArrayList<>();
         BookingStatus bookingStatus = BookingStatus.valueOf(status.toUpperCase());
         if (bookingStatus == BookingStatus.ALL) {
@@ -128,7 +153,7 @@ public class BookingServiceImpl implements BookingService {
         checkEnumExist(status);
         LocalDateTime now = LocalDateTime.now();
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.DESC, "start"));
-        userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        userExistenceValidator.validate(userId);
         List<Booking> bookings = new ArrayList<>();
         BookingStatus bookingStatus = BookingStatus.valueOf(status.toUpperCase());
         if (bookingStatus == BookingStatus.ALL) {
@@ -155,6 +180,43 @@ public class BookingServiceImpl implements BookingService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public String getBookingEtag(Long userId, Long bookingId) {
+        BookingVersion version = bookingRepository.findVersionById(bookingId).orElse(null);
+        if (version == null || !(version.getOwnerId().equals(userId) || version.getBookerId().equals(userId))) {
+            return null;
+        }
+        return changeTracker.entityEtag("booking-" + bookingId, userId, false,
+                version.getLastModified(), version.getItemLastModified(), version.getBookerLastModified());
+    }
+
+    @Override
+    public String getUserBookingsEtag(Long userId, String status, int from, int size) {
+        userExistenceValidator.validate(userId);
+        return changeTracker.listEtag(userId, "bookings", isTimeDependent(status), status, from, size);
+    }
+
+    @Override
+    public String getOwnerBookingsEtag(Long userId, String status, int from, int size) {
+        userExistenceValidator.validate(userId);
+        return changeTracker.listEtag(userId, "owner-bookings", isTimeDependent(status), status, from, size);
+    }
+
+    /**
+     * The owner's item view shows the last and next bookings, so the item version is bumped as well.
+     */
+    private void bookingChanged(Booking booking) {
+        itemRepository.touch(booking.getItem().getId(), LocalDateTime.now());
+        changeTracker.changed(booking.getBooker().getId());
+        changeTracker.changed(booking.getItem().getOwner().getId());
+    }
+
+    private boolean isTimeDependent(String state) {
+        return BookingStatus.CURRENT.name().equals(state)
+                || BookingStatus.PAST.name().equals(state)
+                || BookingStatus.FUTURE.name().equals(state);
+    }
+
     private void checkDateTimeInterval(LocalDateTime startDate, LocalDateTime endDate) {
         Boolean a = !endDate.isAfter(startDate);
         Boolean b = endDate.equals(startDate);
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers (booker, item) pairs with a completed rental. A rental stays completed as time passes,
+ * so only positive answers are cached and a booker's entries are dropped when the status of any of
+ * the booker's bookings changes. The least recently used bookers are evicted above the configured size.
+ */
+@Component
+public class CompletedRentalCache {
+
+    private final Map<Long, Set<Long>> completedItems;
+
+    public CompletedRentalCache(@Value("${shareit.rentals.cache-bookers:10000}") int maxBookers) {
+        this.completedItems = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Set<Long>> eldest) {
+                return size() > maxBookers;
+            }
+        });
+    }
+
+    public boolean contains(Long bookerId, Long itemId) {
+        Set<Long> items = completedItems.get(bookerId);
+        return items != null && items.contains(itemId);
+    }
+
+    public void add(Long bookerId, Long itemId) {
+        completedItems.computeIfAbsent(bookerId, id -> ConcurrentHashMap.newKeySet()).add(itemId);
+    }
+
+    public void invalidate(Long bookerId) {
+        completedItems.remove(bookerId);
+    }
+}
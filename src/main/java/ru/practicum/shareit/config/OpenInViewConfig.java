@@ -0,0 +1,32 @@
+package ru.practicum.shareit.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Open-in-view for every request except the photo endpoints, in place of the interceptor Spring Boot
+ * registers for all of them (switched off with {@code spring.jpa.open-in-view=false}). An upload would
+ * otherwise keep the connection of its ownership check while the body streams to disk; the photo
+ * services map everything inside their own transactions.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class OpenInViewConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        entityManagerFactory.ifAvailable(factory -> {
+            OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+            interceptor.setEntityManagerFactory(factory);
+            registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/items/*/photos", "/items/*/photos/*");
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.service.impl.CommentWriter;
+import ru.practicum.shareit.request.service.impl.ItemRequestFeedHub;
+import ru.practicum.shareit.request.service.impl.ItemRequestMatcher;
+import ru.practicum.shareit.request.service.impl.ItemRequestTextIndex;
+import ru.practicum.shareit.request.service.impl.ItemRequestTimeline;
+import ru.practicum.shareit.user.service.UserEmailFilter;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.user.service.impl.UserPurgeJob;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the queues, caches and background jobs of the application as meters. Request latencies,
+ * repository timers, the connection pool, Hibernate and the JVM are bound by Spring Boot itself, and the
+ * comment queue latency is a timer recorded by {@link CommentWriter} for every written comment.
+ * <p>
+ * The meters are bound once the application is ready rather than by a {@code MeterBinder} bean: the components
+ * load their state from repositories on startup, and the repositories are timed by the registry.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShareItMetrics {
+
+    private final CommentWriter commentWriter;
+    private final ItemRequestMatcher itemRequestMatcher;
+    private final ItemRequestFeedHub itemRequestFeedHub;
+    private final ItemRequestTimeline itemRequestTimeline;
+    private final ItemRequestTextIndex itemRequestTextIndex;
+    private final UserExistenceValidator userExistenceValidator;
+    private final UserEmailFilter userEmailFilter;
+    private final UserPurgeJob userPurgeJob;
+    private final MeterRegistry registry;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bind() {
+        gauge("shareit.comments.queue.depth", commentWriter, CommentWriter::getQueueDepth);
+        gauge("shareit.comments.last.batch.millis", commentWriter, CommentWriter::getLastBatchMillis);
+        counter("shareit.comments.written", commentWriter, CommentWriter::getWrittenCount);
+        counter("shareit.comments.failed", commentWriter, CommentWriter::getFailedCount);
+        counter("shareit.comments.dropped", commentWriter, CommentWriter::getDroppedCount);
+
+        gauge("shareit.requests.matching.queue.depth", itemRequestMatcher,
+                ItemRequestMatcher::getQueueDepth);
+        counter("shareit.requests.matching.matched", itemRequestMatcher,
+                ItemRequestMatcher::getMatchedCount);
+        counter("shareit.requests.matching.dropped", itemRequestMatcher,
+                ItemRequestMatcher::getDroppedCount);
+
+        gauge("shareit.requests.stream.subscribers", itemRequestFeedHub,
+                ItemRequestFeedHub::getSubscriberCount);
+        counter("shareit.requests.stream.evicted", itemRequestFeedHub, ItemRequestFeedHub::getEvictedCount);
+        gauge("shareit.requests.timeline.size", itemRequestTimeline, ItemRequestTimeline::size);
+        gauge("shareit.requests.text.index.size", itemRequestTextIndex, ItemRequestTextIndex::size);
+
+        counter("shareit.users.existence.hits", userExistenceValidator,
+                UserExistenceValidator::getHitCount);
+        counter("shareit.users.existence.misses", userExistenceValidator,
+                UserExistenceValidator::getMissCount);
+        counter("shareit.users.email.filter.lookups", userEmailFilter, UserEmailFilter::getLookupCount);
+        counter("shareit.users.email.filter.skipped", userEmailFilter, UserEmailFilter::getSkippedCount);
+
+        gauge("shareit.users.purge.pending", userPurgeJob, UserPurgeJob::getPendingUsers);
+        counter("shareit.users.purge.users", userPurgeJob, UserPurgeJob::getPurgedUsers);
+        counter("shareit.users.purge.rows", userPurgeJob, UserPurgeJob::getPurgedRows);
+    }
+
+    private <T> void gauge(String name, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).register(registry);
+    }
+
+    private <T> void counter(String name, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, source, value).register(registry);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request runs on its own thread, tagged like http.server.requests,
+ * and warns when a request runs more than the budget. Bodies streamed after the handler returns are
+ * written on other threads and are not counted.
+ */
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final int budget;
+
+    public StatementBudgetFilter(MeterRegistry registry, int budget) {
+        this.registry = registry;
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = StatementCounter.current();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            record(request, StatementCounter.current() - before);
+        }
+    }
+
+    private void record(HttpServletRequest request, long statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString());
+        DistributionSummary.builder("shareit.http.statements")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(registry)
+                .record(statements);
+        if (statements > budget) {
+            Counter.builder("shareit.http.statements.over.budget")
+                    .tags(tags)
+                    .register(registry)
+                    .increment();
+            log.warn("{} {} ran {} SQL statements, the budget is {}", request.getMethod(), request.getRequestURI(),
+                    statements, budget);
+        }
+    }
+}
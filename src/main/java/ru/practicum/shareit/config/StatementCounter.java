@@ -0,0 +1,21 @@
+package ru.practicum.shareit.config;
+
+/**
+ * Counts the SQL statements executed by each thread through {@link StatementCountingDataSource}.
+ * The count only grows, so a caller measures a piece of work as the difference of two readings.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private StatementCounter() {
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    static void increment() {
+        COUNT.get()[0]++;
+    }
+}
@@ -1,17 +1,24 @@
 package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDtoByOwner;
 import ru.practicum.shareit.utils.Marker;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 /**
@@ -44,28 +51,64 @@ public class ItemController {
     @GetMapping
     public List<ItemDtoByOwner> allUserItems(@RequestHeader(USER_ID_HEADER) long userId,
                                              @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                             @Positive @RequestParam(defaultValue = "10") int size) {
-        return itemService.getUserItems(userId, from, size);
+                                             @Positive @RequestParam(defaultValue = "10") int size,
+                                             @RequestParam(defaultValue = "false") boolean commentStats,
+                                             WebRequest webRequest) {
+        if (webRequest.checkNotModified(itemService.getUserItemsEtag(userId, from, size, commentStats))) {
+            return null;
+        }
+        return itemService.getUserItems(userId, from, size, commentStats);
+    }
+
+    @GetMapping(params = "ids")
+    public MultiGetResponse<ItemDtoByOwner> itemsByIds(@RequestHeader(USER_ID_HEADER) long userId,
+                                                       @Size(max = MultiGetResponse.MAX_IDS)
+                                                       @RequestParam List<Long> ids,
+                                                       @RequestParam(defaultValue = "false") boolean commentStats) {
+        return itemService.getItems(userId, ids, commentStats);
     }
 
     @GetMapping("/{itemId}")
     public ItemDtoByOwner item(@RequestHeader(USER_ID_HEADER) long userId,
-                               @PathVariable Long itemId) {
-        return itemService.getItem(userId, itemId);
+                               @PathVariable Long itemId,
+                               @RequestParam(defaultValue = "false") boolean commentStats,
+                               WebRequest webRequest) {
+        if (webRequest.checkNotModified(itemService.getItemEtag(userId, itemId, commentStats))) {
+            return null;
+        }
+        return itemService.getItem(userId, itemId, commentStats);
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestParam String text,
+    public List<ItemDto> search(@RequestParam(required = false) String text,
+                                @DecimalMin("-90") @DecimalMax("90") @RequestParam(required = false) Double lat,
+                                @DecimalMin("-180") @DecimalMax("180") @RequestParam(required = false) Double lon,
+                                @Positive @DecimalMax("100") @RequestParam(defaultValue = "10") double radius,
                                 @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                @Positive @RequestParam(defaultValue = "10") int size) {
-        return itemService.search(text, from, size);
+                                @Positive @RequestParam(defaultValue = "10") int size,
+                                @RequestParam(defaultValue = "false") boolean commentStats) {
+        if (lat == null && lon == null) {
+            if (text == null) {
+                throw new BadRequestException("Parameter text or lat and lon must be specified");
+            }
+            return itemService.search(text, from, size, commentStats);
+        }
+        if (lat == null || lon == null) {
+            throw new BadRequestException("Both lat and lon must be specified");
+        }
+        return itemService.searchNearby(text == null ? "" : text, lat, lon, radius, from, size, commentStats);
     }
 
+    /**
+     * Answers 202 Accepted without an id when the comment was queued for a write-behind insert. 202 only
+     * means the comment passed validation: it shows up once written and may still be rejected later.
+     */
     @PostMapping("/{itemId}/comment")
-    public CommentDto addComment(@RequestHeader(USER_ID_HEADER) long userId,
-                                 @PathVariable Long itemId,
-                                 @Valid @RequestBody CommentDto commentDto) {
-        return itemService.addComment(userId, itemId, commentDto);
+    public ResponseEntity<CommentDto> addComment(@RequestHeader(USER_ID_HEADER) long userId,
+                                                 @PathVariable Long itemId,
+                                                 @Valid @RequestBody CommentDto commentDto) {
+        CommentDto comment = itemService.addComment(userId, itemId, commentDto);
+        return comment.getId() == null ? ResponseEntity.accepted().body(comment) : ResponseEntity.ok(comment);
     }
 }
 
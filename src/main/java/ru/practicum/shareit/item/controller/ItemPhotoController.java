@@ -0,0 +1,54 @@
+package ru.practicum.shareit.item.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.ItemPhotoContent;
+import ru.practicum.shareit.item.dto.ItemPhotoDto;
+import ru.practicum.shareit.item.service.ItemPhotoService;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Photo bytes never pass through Jackson: uploads are read from the raw request body and
+ * downloads are returned as a {@link Resource}, so Range requests are answered with regions
+ * of the file and If-None-Match is checked against the content hash.
+ */
+@RestController
+@RequestMapping("/items/{itemId}/photos")
+@RequiredArgsConstructor
+public class ItemPhotoController {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private final ItemPhotoService itemPhotoService;
+
+    @PostMapping(consumes = "image/*")
+    public ItemPhotoDto add(@RequestHeader(USER_ID_HEADER) Long userId,
+                            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                            @PathVariable Long itemId,
+                            InputStream content) {
+        return itemPhotoService.addPhoto(userId, itemId, contentType, content);
+    }
+
+    @GetMapping
+    public List<ItemPhotoDto> photos(@PathVariable Long itemId) {
+        return itemPhotoService.getPhotos(itemId);
+    }
+
+    @GetMapping("/{photoId}")
+    public ResponseEntity<Resource> photo(@PathVariable Long itemId, @PathVariable Long photoId) {
+        ItemPhotoContent photo = itemPhotoService.getPhoto(itemId, photoId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(photo.getContentType()))
+                .eTag(photo.getHash())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(photo.getResource());
+    }
+}
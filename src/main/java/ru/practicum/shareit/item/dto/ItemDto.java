@@ -8,8 +8,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.utils.Marker;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 
 /**
  * TODO Sprint add-controllers.
@@ -31,5 +34,34 @@ public class ItemDto {
     private Boolean available;
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Long requestId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @DecimalMin(value = "-90", groups = {Marker.OnCreate.class, Marker.OnUpdate.class})
+    @DecimalMax(value = "90", groups = {Marker.OnCreate.class, Marker.OnUpdate.class})
+    private Double lat;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @DecimalMin(value = "-180", groups = {Marker.OnCreate.class, Marker.OnUpdate.class})
+    @DecimalMax(value = "180", groups = {Marker.OnCreate.class, Marker.OnUpdate.class})
+    private Double lon;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer commentCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long lastCommentId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime lastCommentAt;
+
+    /**
+     * Used by JPQL constructor expressions that select items together with their request id.
+     */
+    public ItemDto(Long id, String name, String description, Long ownerId, Boolean available, Long requestId,
+                   Double lat, Double lon) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.ownerId = ownerId;
+        this.available = available;
+        this.requestId = requestId;
+        this.lat = lat;
+        this.lon = lon;
+    }
 }
 
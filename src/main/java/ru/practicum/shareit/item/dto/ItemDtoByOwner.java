@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Builder(toBuilder = true)
@@ -21,8 +22,19 @@ public class ItemDtoByOwner {
     private Boolean available;
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Long requestId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double lat;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double lon;
     private BookingDto lastBooking;
     private BookingDto nextBooking;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<CommentDto> comments;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer commentCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long lastCommentId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime lastCommentAt;
 }
 
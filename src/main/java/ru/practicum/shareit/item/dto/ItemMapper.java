@@ -27,6 +27,18 @@ public class ItemMapper {
         if (item.getRequest() != null) {
             itemDto.setRequestId(item.getRequest().getId());
         }
+        itemDto.setLat(item.getLat());
+        itemDto.setLon(item.getLon());
+        return itemDto;
+    }
+
+    public static ItemDto toItemDto(Item item, boolean commentStats) {
+        ItemDto itemDto = toItemDto(item);
+        if (commentStats) {
+            itemDto.setCommentCount(commentCount(item));
+            itemDto.setLastCommentId(item.getLastCommentId());
+            itemDto.setLastCommentAt(item.getLastCommentAt());
+        }
         return itemDto;
     }
 
@@ -46,6 +58,8 @@ public class ItemMapper {
         if (item.getRequest() != null) {
             itemDtoByOwner.setRequestId(item.getRequest().getId());
         }
+        itemDtoByOwner.setLat(item.getLat());
+        itemDtoByOwner.setLon(item.getLon());
         if (lastBooking != null) {
             itemDtoByOwner.setLastBooking(BookingMapper.toBookingDto(lastBooking));
         }
@@ -72,6 +86,21 @@ public class ItemMapper {
     }
 
 
+    /**
+     * Replaces the comment list with the aggregates kept on the item row.
+     */
+    public static ItemDtoByOwner withCommentStats(ItemDtoByOwner itemDtoByOwner, Item item) {
+        itemDtoByOwner.setComments(null);
+        itemDtoByOwner.setCommentCount(commentCount(item));
+        itemDtoByOwner.setLastCommentId(item.getLastCommentId());
+        itemDtoByOwner.setLastCommentAt(item.getLastCommentAt());
+        return itemDtoByOwner;
+    }
+
+    private static int commentCount(Item item) {
+        return item.getCommentCount() == null ? 0 : item.getCommentCount();
+    }
+
     public static Item toItem(ItemDto itemDto, User user) {
         Item item = new Item();
         item.setId(itemDto.getId());
@@ -79,6 +108,8 @@ public class ItemMapper {
         item.setDescription(itemDto.getDescription());
         item.setOwner(user);
         item.setAvailable(itemDto.getAvailable());
+        item.setLat(itemDto.getLat());
+        item.setLon(itemDto.getLon());
         return item;
     }
 
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+@Getter
+@AllArgsConstructor
+public class ItemPhotoContent {
+
+    private final Resource resource;
+    private final String contentType;
+    private final String hash;
+
+}
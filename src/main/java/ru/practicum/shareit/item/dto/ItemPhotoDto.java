@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPhotoDto {
+
+    private Long id;
+    private Long itemId;
+    private String contentType;
+    private Long size;
+    private String hash;
+    private LocalDateTime created;
+
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.item.model.ItemPhoto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ItemPhotoMapper {
+
+    public static ItemPhotoDto toItemPhotoDto(ItemPhoto itemPhoto) {
+        return ItemPhotoDto.builder()
+                .id(itemPhoto.getId())
+                .itemId(itemPhoto.getItem().getId())
+                .contentType(itemPhoto.getContentType())
+                .size(itemPhoto.getSize())
+                .hash(itemPhoto.getHash())
+                .created(itemPhoto.getCreated())
+                .build();
+    }
+
+    public static List<ItemPhotoDto> toItemPhotoDto(Collection<ItemPhoto> itemPhotos) {
+        return itemPhotos.stream()
+                .map(ItemPhotoMapper::toItemPhotoDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when an item row is deleted. Listeners keeping in-memory indexes should react after
+ * the transaction commits.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemDeletedEvent {
+
+    private final Long itemId;
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Published by the item service whenever an item is created or updated.
+ * Listeners keeping in-memory indexes should react after the transaction commits.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemSavedEvent {
+
+    private final Long itemId;
+    private final String name;
+    private final String description;
+    private final Boolean available;
+    private final Double lat;
+    private final Double lon;
+    private final Long ownerId;
+    private final Long requestId;
+
+    public static ItemSavedEvent of(Item item) {
+        return new ItemSavedEvent(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getLat(), item.getLon(), item.getOwner().getId(),
+                item.getRequest() == null ? null : item.getRequest().getId());
+    }
+}
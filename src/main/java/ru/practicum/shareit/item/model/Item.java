@@ -4,10 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 /**
  * TODO Sprint add-controllers.
@@ -41,4 +43,24 @@ public class Item {
     @JoinColumn(name = "request")
     private ItemRequest request;
 
+    @Column(insertable = false, updatable = false)
+    private Double popularity;
+
+    private Double lat;
+
+    private Double lon;
+
+    @UpdateTimestamp
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    private Integer commentCount;
+
+    @Column(name = "last_comment_id", insertable = false, updatable = false)
+    private Long lastCommentId;
+
+    @Column(name = "last_comment_at", insertable = false, updatable = false)
+    private LocalDateTime lastCommentAt;
+
 }
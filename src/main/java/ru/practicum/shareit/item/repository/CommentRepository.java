@@ -1,8 +1,11 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -12,4 +15,8 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findByItem_IdIn(Collection<Long> itemIds);
 
+    @Query("select c.item.id as itemId, count(c) as events from Comment c " +
+            "where c.created > :from and c.created <= :to group by c.item.id")
+    List<ItemEventCount> countCreatedByItem(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
 }
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.repository;
+
+public interface ItemEventCount {
+
+    Long getItemId();
+
+    Long getEvents();
+
+}
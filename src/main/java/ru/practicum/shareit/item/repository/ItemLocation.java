@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.repository;
+
+public interface ItemLocation {
+
+    Long getId();
+
+    Double getLat();
+
+    Double getLon();
+
+}
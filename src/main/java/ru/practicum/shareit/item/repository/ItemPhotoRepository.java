@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.ItemPhoto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemPhotoRepository extends JpaRepository<ItemPhoto, Long> {
+
+    List<ItemPhoto> findByItem_IdOrderById(Long itemId);
+
+    Optional<ItemPhoto> findByIdAndItem_Id(Long id, Long itemId);
+
+    boolean existsByHash(String hash);
+
+    @Query("select distinct p.hash from ItemPhoto p where p.hash in :hashes")
+    List<String> findHashesIn(@Param("hashes") Collection<String> hashes);
+
+}
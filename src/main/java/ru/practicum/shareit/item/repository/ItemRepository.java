@@ -2,19 +2,98 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    List<Item> findAllByDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(String description, String name, Pageable pageable);
+    @Query("select i from Item i where i.available = true and i.owner.deletedAt is null and (" +
+            "upper(i.description) like upper(concat('%', :text, '%')) " +
+            "or upper(i.name) like upper(concat('%', :text, '%')))")
+    List<Item> findAvailableByText(@Param("text") String text, Pageable pageable);
 
     List<Item> findByOwnerId(Long ownerId);
 
+    Optional<Item> findByIdAndOwnerDeletedAtIsNull(Long id);
+
+    List<Item> findByIdInAndOwnerDeletedAtIsNull(Collection<Long> ids);
+
+    @Query("select i.id from Item i where i.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
     List<Item> findByRequestIdIn(Collection<Long> requestsIds);
 
     List<Item> findByRequestId(Long requestId);
 
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.owner.id, " +
+            "i.available, i.request.id, i.lat, i.lon) from Item i where i.request.id in :requestIds " +
+            "and i.owner.deletedAt is null order by i.id")
+    List<ItemDto> findDtoByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    List<ItemLocation> findByLatIsNotNullAndLonIsNotNullAndOwnerDeletedAtIsNull();
+
+    List<ItemText> findByAvailableTrueAndOwnerDeletedAtIsNull();
+
+    @Query("select i from Item i where i.id in :ids and i.available = true and i.owner.deletedAt is null " +
+            "and (:text = '' " +
+            "or upper(i.name) like upper(concat('%', :text, '%')) " +
+            "or upper(i.description) like upper(concat('%', :text, '%')))")
+    List<Item> findAvailableByIdInAndText(@Param("ids") Collection<Long> ids, @Param("text") String text);
+
+    @Query("select i.lastModified as lastModified, i.owner.id as ownerId from Item i " +
+            "where i.id = :itemId and i.owner.deletedAt is null")
+    Optional<ItemVersion> findVersionById(@Param("itemId") Long itemId);
+
+    @Modifying
+    @Query("update Item i set i.lastModified = :now where i.id = :itemId")
+    void touch(@Param("itemId") Long itemId, @Param("now") LocalDateTime now);
+
+    /**
+     * Bumps the version of the items the user commented on, whose views show the author's name.
+     */
+    @Modifying
+    @Query("update Item i set i.lastModified = :now " +
+            "where i.id in (select c.item.id from Comment c where c.author.id = :authorId)")
+    int touchCommentedBy(@Param("authorId") Long authorId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Item i set i.commentCount = i.commentCount + 1, " +
+            "i.lastCommentId = case when i.lastCommentId is null or i.lastCommentId < :commentId " +
+            "then :commentId else i.lastCommentId end, " +
+            "i.lastCommentAt = case when i.lastCommentId is null or i.lastCommentId < :commentId " +
+            "then :created else i.lastCommentAt end, " +
+            "i.lastModified = :now where i.id = :itemId")
+    void commentAdded(@Param("itemId") Long itemId,
+                      @Param("commentId") Long commentId,
+                      @Param("created") LocalDateTime created,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "update items set popularity_next = 0 where popularity_next <> 0", nativeQuery = true)
+    void resetNextPopularity();
+
+    @Modifying
+    @Query(value = "update items set popularity_next = popularity_next + :delta where id = :itemId",
+            nativeQuery = true)
+    void increaseNextPopularity(@Param("itemId") Long itemId, @Param("delta") double delta);
+
+    /**
+     * Replaces the scores with the ones rebuilt in {@code popularity_next} in a single statement.
+     */
+    @Modifying
+    @Query(value = "update items set popularity = popularity_next, popularity_next = 0", nativeQuery = true)
+    int swapInNextPopularity();
+
+    @Modifying
+    @Query("update Item i set i.popularity = i.popularity + :delta where i.id = :itemId")
+    void increasePopularity(@Param("itemId") Long itemId, @Param("delta") double delta);
+
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.ItemPhotoContent;
+import ru.practicum.shareit.item.dto.ItemPhotoDto;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface ItemPhotoService {
+
+    ItemPhotoDto addPhoto(Long userId, Long itemId, String contentType, InputStream content);
+
+    List<ItemPhotoDto> getPhotos(Long itemId);
+
+    ItemPhotoContent getPhoto(Long itemId, Long photoId);
+
+}
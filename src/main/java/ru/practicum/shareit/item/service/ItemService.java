@@ -3,7 +3,9 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoByOwner;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemService {
@@ -12,12 +14,29 @@ public interface ItemService {
 
     ItemDto updateItem(Long ownerId, Long itemId, ItemDto itemDto);
 
-    List<ItemDtoByOwner> getUserItems(Long userId, int from, int size);
+    List<ItemDtoByOwner> getUserItems(Long userId, int from, int size, boolean commentStats);
 
-    ItemDtoByOwner getItem(Long userId, Long itemId);
+    ItemDtoByOwner getItem(Long userId, Long itemId, boolean commentStats);
 
-    List<ItemDto> search(String text, int from, int size);
+    /**
+     * Items with the given ids in the requested order, as {@link #getItem} shows them.
+     */
+    MultiGetResponse<ItemDtoByOwner> getItems(Long userId, Collection<Long> itemIds, boolean commentStats);
 
+    String getUserItemsEtag(Long userId, int from, int size, boolean commentStats);
+
+    String getItemEtag(Long userId, Long itemId, boolean commentStats);
+
+    List<ItemDto> search(String text, int from, int size, boolean commentStats);
+
+    List<ItemDto> searchNearby(String text, double lat, double lon, double radiusKm, int from, int size,
+                               boolean commentStats);
+
+    /**
+     * Saves the comment, or queues it when write-behind ingestion is on; a queued comment has no id yet.
+     * A queued comment that can no longer be written, for example because the item was deleted meanwhile,
+     * is kept in {@code failed_comments} rather than shown on the item.
+     */
     CommentDto addComment(Long authorId, Long itemId, CommentDto commentDto);
 
 }
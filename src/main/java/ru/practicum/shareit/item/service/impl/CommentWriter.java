@@ -0,0 +1,287 @@
+package ru.practicum.shareit.item.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.utils.ChangeTracker;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind ingestion of comments. With {@code shareit.comments.ingestion=async} validated comments
+ * are put on a bounded lock-free queue and a single writer thread inserts them in JDBC batches.
+ * A full queue or the sync mode make {@link #offer} return false, and the caller saves the comment itself.
+ * The queue is drained on shutdown: offers hold a read lock around the accepting check and the enqueue,
+ * and stopping flips the flag under the write lock, so no comment is queued after the last flush.
+ * <p>
+ * A queued comment was already answered with 202, so a comment that fails in its batch and again on its own
+ * (for example because its item was purged meanwhile) is kept in {@code failed_comments} for an operator
+ * instead of being dropped. If that insert fails too, the database is assumed to be unavailable and the
+ * comment is queued again, up to three attempts in all; only then, or when it is still queued on
+ * shutdown, it is counted as dropped.
+ * <p>
+ * The time from enqueue to commit of every written comment is recorded by the
+ * {@code shareit.comments.queue.latency} timer.
+ */
+@Component
+@Slf4j
+public class CommentWriter {
+
+    private static final String INSERT_COMMENT =
+            "INSERT INTO comments (text, author_id, item_id, created) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_ITEM_STATS = "UPDATE items SET comment_count = comment_count + ?, "
+            + "last_comment_id = (SELECT MAX(c.id) FROM comments c WHERE c.item_id = items.id), "
+            + "last_comment_at = (SELECT c.created FROM comments c "
+            + "WHERE c.id = (SELECT MAX(m.id) FROM comments m WHERE m.item_id = items.id)), "
+            + "last_modified = ? WHERE id = ?";
+    private static final String INSERT_FAILED_COMMENT = "INSERT INTO failed_comments "
+            + "(text, author_id, item_id, created, failed_at, error) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeTracker changeTracker;
+    private final Timer queueLatency;
+
+    private final boolean async;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushMillis;
+
+    private final Queue<PendingComment> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long lastBatchMillis;
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private ScheduledExecutorService executor;
+
+    public CommentWriter(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         ChangeTracker changeTracker,
+                         MeterRegistry registry,
+                         @Value("${shareit.comments.ingestion:sync}") String ingestion,
+                         @Value("${shareit.comments.queue-capacity:10000}") int queueCapacity,
+                         @Value("${shareit.comments.batch-size:200}") int batchSize,
+                         @Value("${shareit.comments.flush-ms:100}") long flushMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeTracker = changeTracker;
+        this.queueLatency = Timer.builder("shareit.comments.queue.latency")
+                .description("Time from enqueue to commit of a written-behind comment")
+                .register(registry);
+        this.async = "async".equalsIgnoreCase(ingestion);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comment-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        accepting = true;
+        log.info("Comments are written behind in batches of {}, queue capacity {}", batchSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        int left = queueDepth.get();
+        if (left > 0) {
+            dropped.addAndGet(left);
+            log.error("Comment writer stopped with {} comments that could not be written", left);
+        }
+        log.info("Comment writer stopped, {} comments written", written.get());
+    }
+
+    /**
+     * Queues a validated comment. Returns false if the comment has to be saved synchronously.
+     */
+    public boolean offer(Comment comment, Long ownerId) {
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                return false;
+            }
+            if (queueDepth.incrementAndGet() > queueCapacity) {
+                queueDepth.decrementAndGet();
+                return false;
+            }
+            queue.add(new PendingComment(comment.getText(), comment.getAuthor().getId(), comment.getItem().getId(),
+                    ownerId, comment.getCreated(), System.nanoTime(), 0));
+            return true;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes everything queued so far. Called by the writer thread and on shutdown.
+     */
+    public synchronized void flush() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        List<PendingComment> retries = new ArrayList<>();
+        PendingComment pending;
+        while ((pending = queue.poll()) != null) {
+            queueDepth.decrementAndGet();
+            batch.add(pending);
+            if (batch.size() == batchSize) {
+                write(batch, retries);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, retries);
+        }
+        for (PendingComment retry : retries) {
+            queueDepth.incrementAndGet();
+            queue.add(retry);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Comments that could not be written and were kept in {@code failed_comments}.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Comments that could neither be written nor kept in {@code failed_comments}.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getLastBatchMillis() {
+        return lastBatchMillis;
+    }
+
+    private void write(List<PendingComment> batch, List<PendingComment> retries) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            batch.forEach(this::written);
+        } catch (RuntimeException e) {
+            log.error("Batch of {} comments failed, writing them one by one", batch.size(), e);
+            for (PendingComment pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(pending)));
+                    written(pending);
+                } catch (RuntimeException rowError) {
+                    keepFailed(pending, rowError, retries);
+                }
+            }
+        }
+        lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void keepFailed(PendingComment pending, RuntimeException error, List<PendingComment> retries) {
+        String message = String.valueOf(error.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_FAILED_COMMENT,
+                    pending.getText(), pending.getAuthorId(), pending.getItemId(),
+                    Timestamp.valueOf(pending.getCreated()), Timestamp.valueOf(LocalDateTime.now()),
+                    message.substring(0, Math.min(message.length(), MAX_ERROR_LENGTH))));
+            failed.incrementAndGet();
+            log.error("Comment of user {} to item {} could not be written and is kept in failed_comments",
+                    pending.getAuthorId(), pending.getItemId(), error);
+        } catch (RuntimeException keepError) {
+            if (++pending.attempts < MAX_ATTEMPTS) {
+                retries.add(pending);
+                log.warn("Comment of user {} to item {} could not be written, retrying with the next flush",
+                        pending.getAuthorId(), pending.getItemId(), error);
+            } else {
+                dropped.incrementAndGet();
+                log.error("Comment of user {} to item {} was dropped after {} attempts", pending.getAuthorId(),
+                        pending.getItemId(), MAX_ATTEMPTS, error);
+            }
+        }
+    }
+
+    private void written(PendingComment pending) {
+        changeTracker.changed(pending.getOwnerId());
+        queueLatency.record(System.nanoTime() - pending.getEnqueuedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void insert(List<PendingComment> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        Map<Long, Integer> itemComments = new HashMap<>();
+        for (PendingComment pending : batch) {
+            rows.add(new Object[]{pending.getText(), pending.getAuthorId(), pending.getItemId(),
+                    Timestamp.valueOf(pending.getCreated())});
+            itemComments.merge(pending.getItemId(), 1, Integer::sum);
+        }
+        jdbcTemplate.batchUpdate(INSERT_COMMENT, rows);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> items = new ArrayList<>(itemComments.size());
+        itemComments.forEach((itemId, count) -> items.add(new Object[]{count, now, itemId}));
+        jdbcTemplate.batchUpdate(UPDATE_ITEM_STATS, items);
+        written.addAndGet(batch.size());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingComment {
+        private final String text;
+        private final Long authorId;
+        private final Long itemId;
+        private final Long ownerId;
+        private final LocalDateTime created;
+        private final long enqueuedNanos;
+        private int attempts;
+    }
+}
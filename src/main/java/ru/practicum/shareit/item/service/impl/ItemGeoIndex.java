@@ -0,0 +1,145 @@
+package ru.practicum.shareit.item.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.event.ItemDeletedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.repository.ItemLocation;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.utils.GeoHash;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory geohash grid over item locations. Every item is registered in cells of several
+ * precisions, and a query uses the finest precision whose covering stays small, so only
+ * candidate cells are read.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemGeoIndex {
+
+    private static final int MIN_PRECISION = 3;
+    private static final int MAX_PRECISION = 6;
+    private static final int MAX_CELLS_PER_QUERY = 64;
+
+    private final ItemRepository itemRepository;
+
+    private final Map<Long, double[]> positions = new ConcurrentHashMap<>();
+    private final List<Map<String, Set<Long>>> levels = createLevels();
+
+    @PostConstruct
+    public void load() {
+        List<ItemLocation> locations = itemRepository.findByLatIsNotNullAndLonIsNotNullAndOwnerDeletedAtIsNull();
+        for (ItemLocation location : locations) {
+            put(location.getId(), location.getLat(), location.getLon());
+        }
+        log.info("Item geo index loaded with {} items", locations.size());
+    }
+
+    @TransactionalEventListener
+    public void onItemSaved(ItemSavedEvent event) {
+        if (event.getLat() == null || event.getLon() == null) {
+            remove(event.getItemId());
+        } else {
+            put(event.getItemId(), event.getLat(), event.getLon());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onItemDeleted(ItemDeletedEvent event) {
+        remove(event.getItemId());
+    }
+
+    /**
+     * Items of a deleted user are hidden right away; the rows are purged later.
+     */
+    @TransactionalEventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        itemRepository.findIdsByOwnerId(event.getUserId()).forEach(this::remove);
+    }
+
+    public synchronized void put(Long itemId, double lat, double lon) {
+        remove(itemId);
+        positions.put(itemId, new double[]{lat, lon});
+        for (int precision = MIN_PRECISION; precision <= MAX_PRECISION; precision++) {
+            level(precision).computeIfAbsent(GeoHash.encode(lat, lon, precision), cell -> ConcurrentHashMap.newKeySet())
+                    .add(itemId);
+        }
+    }
+
+    public synchronized void remove(Long itemId) {
+        double[] position = positions.remove(itemId);
+        if (position == null) {
+            return;
+        }
+        for (int precision = MIN_PRECISION; precision <= MAX_PRECISION; precision++) {
+            String cell = GeoHash.encode(position[0], position[1], precision);
+            level(precision).computeIfPresent(cell, (key, ids) -> {
+                ids.remove(itemId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Returns ids of items within the radius, nearest first.
+     */
+    public List<Long> findWithin(double lat, double lon, double radiusKm) {
+        int precision = choosePrecision(lat, radiusKm);
+        Map<String, Set<Long>> level = level(precision);
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Double> distances = new HashMap<>();
+        for (String cell : GeoHash.coveringCells(lat, lon, radiusKm, precision)) {
+            Set<Long> cellIds = level.get(cell);
+            if (cellIds == null) {
+                continue;
+            }
+            for (Long itemId : cellIds) {
+                double[] position = positions.get(itemId);
+                if (position == null || distances.containsKey(itemId)) {
+                    continue;
+                }
+                double distance = GeoHash.distanceKm(lat, lon, position[0], position[1]);
+                if (distance <= radiusKm) {
+                    distances.put(itemId, distance);
+                    ids.add(itemId);
+                }
+            }
+        }
+        ids.sort(Comparator.comparing(distances::get));
+        return ids;
+    }
+
+    private int choosePrecision(double lat, double radiusKm) {
+        for (int precision = MAX_PRECISION; precision > MIN_PRECISION; precision--) {
+            if (GeoHash.countCoveringCells(lat, radiusKm, precision) <= MAX_CELLS_PER_QUERY) {
+                return precision;
+            }
+        }
+        return MIN_PRECISION;
+    }
+
+    private static List<Map<String, Set<Long>>> createLevels() {
+        List<Map<String, Set<Long>>> levels = new ArrayList<>();
+        for (int precision = MIN_PRECISION; precision <= MAX_PRECISION; precision++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+        return levels;
+    }
+
+    private Map<String, Set<Long>> level(int precision) {
+        return levels.get(precision - MIN_PRECISION);
+    }
+}
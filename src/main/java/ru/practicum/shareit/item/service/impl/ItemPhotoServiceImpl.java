@@ -0,0 +1,105 @@
+package ru.practicum.shareit.item.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.dto.ItemPhotoContent;
+import ru.practicum.shareit.item.dto.ItemPhotoDto;
+import ru.practicum.shareit.item.dto.ItemPhotoMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPhoto;
+import ru.practicum.shareit.item.repository.ItemPhotoRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemPhotoService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ItemPhotoServiceImpl implements ItemPhotoService {
+
+    private final ItemRepository itemRepository;
+    private final ItemPhotoRepository itemPhotoRepository;
+    private final ItemPhotoStorage itemPhotoStorage;
+
+    /**
+     * Not transactional on purpose, and the upload endpoint is left out of open-in-view: the ownership
+     * check and the metadata insert each borrow a connection briefly, and none is held while the upload
+     * is streamed to disk. A file left without a photo because the insert failed is removed later by
+     * {@link ItemPhotoSweepJob}.
+     */
+    @Override
+    public ItemPhotoDto addPhoto(Long userId, Long itemId, String contentType, InputStream content) {
+        MediaType mediaType = parseImageType(contentType);
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> new EntityNotFoundException("Item not found."));
+        if (!item.getOwner().getId().equals(userId)) {
+            throw new EntityNotFoundException(String.format("The item was not found in the user %s", userId));
+        }
+        ItemPhotoStorage.StoredPhoto storedPhoto;
+        try {
+            storedPhoto = itemPhotoStorage.store(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Photo upload failed", e);
+        }
+        ItemPhoto itemPhoto;
+        try {
+            itemPhoto = itemPhotoRepository.save(ItemPhoto.builder()
+                    .item(item)
+                    .hash(storedPhoto.getHash())
+                    .contentType(mediaType.toString())
+                    .size(storedPhoto.getSize())
+                    .created(LocalDateTime.now().withNano(0))
+                    .build());
+        } finally {
+            itemPhotoStorage.release(storedPhoto.getHash());
+        }
+        log.info("Owner {} added photo {} to item {}", userId, itemPhoto.getId(), itemId);
+        return ItemPhotoMapper.toItemPhotoDto(itemPhoto);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemPhotoDto> getPhotos(Long itemId) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new EntityNotFoundException("Item not found.");
+        }
+        return ItemPhotoMapper.toItemPhotoDto(itemPhotoRepository.findByItem_IdOrderById(itemId));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ItemPhotoContent getPhoto(Long itemId, Long photoId) {
+        ItemPhoto itemPhoto = itemPhotoRepository.findByIdAndItem_Id(photoId, itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Photo not found."));
+        Path path = itemPhotoStorage.resolve(itemPhoto.getHash());
+        if (!Files.isReadable(path)) {
+            throw new EntityNotFoundException("Photo content not found.");
+        }
+        return new ItemPhotoContent(new FileSystemResource(path), itemPhoto.getContentType(), itemPhoto.getHash());
+    }
+
+    private MediaType parseImageType(String contentType) {
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if ("image".equals(mediaType.getType()) && !mediaType.isWildcardSubtype()) {
+                return new MediaType(mediaType.getType(), mediaType.getSubtype());
+            }
+        } catch (InvalidMediaTypeException e) {
+            log.debug("Invalid photo content type {}", contentType);
+        }
+        throw new BadRequestException("Photo content type must be image/*");
+    }
+}
@@ -0,0 +1,198 @@
+package ru.practicum.shareit.item.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed photo storage on local disk. Files are named by their SHA-256 and spread over
+ * two directory levels, so identical uploads share one file and a stored file never changes.
+ * <p>
+ * Files are never deleted by uploads; {@link ItemPhotoSweepJob} removes the ones no photo refers to.
+ * A stored hash counts as in use from {@link #store} until {@link #release}, and the check and delete of
+ * {@link #deleteIfUnused} run atomically with that, so a file is never removed under an upload whose photo
+ * row is not committed yet.
+ */
+@Component
+@Slf4j
+public class ItemPhotoStorage {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+    private final long maxBytes;
+    private final ConcurrentMap<String, Integer> uploads = new ConcurrentHashMap<>();
+
+    public ItemPhotoStorage(@Value("${shareit.photos.dir}") String root,
+                            @Value("${shareit.photos.max-bytes:10485760}") long maxBytes) {
+        this.root = Paths.get(root).toAbsolutePath();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Streams the content to a temporary file while hashing it and then moves it into place.
+     * At most one buffer of the content is held on the heap. The caller must {@link #release} the
+     * returned hash once its photo row is saved or has failed.
+     */
+    public StoredPhoto store(InputStream content) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path temp = Files.createTempFile(tmpDir, "upload-", ".part");
+        MessageDigest digest = sha256();
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new BadRequestException(String.format("Photo is larger than %d bytes", maxBytes));
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (size == 0) {
+            Files.deleteIfExists(temp);
+            throw new BadRequestException("Photo is empty");
+        }
+        String hash = toHex(digest.digest());
+        Path target = resolve(hash);
+        uploads.merge(hash, 1, Integer::sum);
+        try {
+            if (Files.exists(target)) {
+                Files.delete(temp);
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            release(hash);
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        log.debug("Photo {} stored, {} bytes", hash, size);
+        return new StoredPhoto(hash, size);
+    }
+
+    /**
+     * Ends the upload of a stored hash, after which the sweep may delete the file if no photo refers to it.
+     */
+    public void release(String hash) {
+        uploads.computeIfPresent(hash, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Deletes the file unless an upload of the same content is in progress or the hash is still referenced.
+     */
+    public boolean deleteIfUnused(String hash, Predicate<String> referenced) {
+        boolean[] deleted = {false};
+        uploads.compute(hash, (key, count) -> {
+            if (count == null && !referenced.test(key)) {
+                deleted[0] = deleteQuietly(resolve(key));
+            }
+            return count;
+        });
+        return deleted[0];
+    }
+
+    /**
+     * The hashes of all stored files. The stream reads the directories lazily and must be closed.
+     */
+    public Stream<String> hashes() throws IOException {
+        return Files.walk(root, 3)
+                .filter(Files::isRegularFile)
+                .map(path -> path.getFileName().toString())
+                .filter(name -> HASH_PATTERN.matcher(name).matches());
+    }
+
+    /**
+     * Deletes temporary files left by uploads that were interrupted before they finished.
+     */
+    public int deleteStaleUploads(Duration age) throws IOException {
+        Path tmpDir = root.resolve("tmp");
+        if (!Files.isDirectory(tmpDir)) {
+            return 0;
+        }
+        FileTime before = FileTime.from(Instant.now().minus(age));
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(tmpDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(file).compareTo(before) < 0 && deleteQuietly(file)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    public Path resolve(String hash) {
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid photo hash " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static boolean deleteQuietly(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Photo file {} could not be deleted", path, e);
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StoredPhoto {
+        private final String hash;
+        private final long size;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.repository.ItemPhotoRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Deletes photo files no photo refers to any more: files of uploads whose insert failed and files whose
+ * photos went away with their items, e.g. when the user purge deleted them by cascade. Stored hashes are
+ * checked against {@code item_photos} in batches, and each candidate is checked again while it is deleted,
+ * so a file that an upload is just reusing is kept. Temporary files of interrupted uploads are removed too.
+ */
+@Component
+@Slf4j
+public class ItemPhotoSweepJob {
+
+    private final ItemPhotoStorage itemPhotoStorage;
+    private final ItemPhotoRepository itemPhotoRepository;
+
+    private final int batchSize;
+    private final Duration staleUploadAge;
+
+    public ItemPhotoSweepJob(ItemPhotoStorage itemPhotoStorage,
+                             ItemPhotoRepository itemPhotoRepository,
+                             @Value("${shareit.photos.sweep.batch-size:500}") int batchSize,
+                             @Value("${shareit.photos.sweep.stale-upload-minutes:60}") long staleUploadMinutes) {
+        this.itemPhotoStorage = itemPhotoStorage;
+        this.itemPhotoRepository = itemPhotoRepository;
+        this.batchSize = batchSize;
+        this.staleUploadAge = Duration.ofMinutes(staleUploadMinutes);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.photos.sweep.interval-ms:3600000}")
+    public void sweep() {
+        int deleted = 0;
+        try (Stream<String> hashes = itemPhotoStorage.hashes()) {
+            List<String> batch = new ArrayList<>(batchSize);
+            Iterator<String> iterator = hashes.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    deleted += sweep(batch);
+                    batch.clear();
+                }
+            }
+            deleted += itemPhotoStorage.deleteStaleUploads(staleUploadAge);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Photo sweep stopped early", e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unused photo files", deleted);
+        }
+    }
+
+    private int sweep(List<String> hashes) {
+        Set<String> referenced = new HashSet<>(itemPhotoRepository.findHashesIn(hashes));
+        int deleted = 0;
+        for (String hash : hashes) {
+            if (!referenced.contains(hash)
+                    && itemPhotoStorage.deleteIfUnused(hash, itemPhotoRepository::existsByHash)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
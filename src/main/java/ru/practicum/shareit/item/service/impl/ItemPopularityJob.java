@@ -0,0 +1,134 @@
+package ru.practicum.shareit.item.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemEventCount;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Keeps {@code items.popularity} up to date from completed bookings and comments.
+ * Scores use forward decay: an event at time t adds 2^((t - EPOCH) / halfLife), so only items
+ * with new events are touched and older events still lose weight relative to newer ones.
+ * <p>
+ * The time up to which events are counted is stored in {@code job_watermarks}, so a restart carries on
+ * from it. Without one the scores are rebuilt into {@code items.popularity_next} one day per transaction
+ * and swapped in by a single statement, so searches keep the old scores until the new ones are complete.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemPopularityJob {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final String JOB_NAME = "item-popularity";
+
+    private static final String SELECT_WATERMARK = "SELECT watermark FROM job_watermarks WHERE name = :name";
+    private static final String UPDATE_WATERMARK =
+            "UPDATE job_watermarks SET watermark = :watermark WHERE name = :name";
+    private static final String INSERT_WATERMARK =
+            "INSERT INTO job_watermarks (name, watermark) VALUES (:name, :watermark)";
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${shareit.popularity.half-life-days:30}")
+    private double halfLifeDays;
+
+    @Value("${shareit.popularity.rebuild-days:180}")
+    private int rebuildDays;
+
+    @Scheduled(fixedDelayString = "${shareit.popularity.refresh-ms:600000}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime watermark = loadWatermark();
+        if (watermark == null) {
+            rebuild(now);
+            return;
+        }
+        int updated = inTransaction(() -> {
+            int items = accumulate(watermark, now, weight(now), itemRepository::increasePopularity);
+            saveWatermark(now);
+            return items;
+        });
+        log.debug("Item popularity refreshed for {} items", updated);
+    }
+
+    private void rebuild(LocalDateTime now) {
+        inTransaction(() -> {
+            itemRepository.resetNextPopularity();
+            return 0;
+        });
+        int updated = 0;
+        for (int day = rebuildDays; day > 0; day--) {
+            LocalDateTime from = now.minusDays(day);
+            LocalDateTime to = from.plusDays(1);
+            updated += inTransaction(() -> accumulate(from, to, weight(from.plusHours(12)),
+                    itemRepository::increaseNextPopularity));
+        }
+        inTransaction(() -> {
+            int items = itemRepository.swapInNextPopularity();
+            saveWatermark(now);
+            return items;
+        });
+        log.info("Item popularity rebuilt from the last {} days, {} item updates", rebuildDays, updated);
+    }
+
+    private int accumulate(LocalDateTime from, LocalDateTime to, double weight, ObjDoubleConsumer<Long> increase) {
+        Map<Long, Long> events = new HashMap<>();
+        merge(events, bookingRepository.countEndedByItem(BookingStatus.APPROVED, from, to));
+        merge(events, commentRepository.countCreatedByItem(from, to));
+        events.forEach((itemId, count) -> increase.accept(itemId, count * weight));
+        return events.size();
+    }
+
+    private void merge(Map<Long, Long> events, List<ItemEventCount> counts) {
+        for (ItemEventCount count : counts) {
+            events.merge(count.getItemId(), count.getEvents(), Long::sum);
+        }
+    }
+
+    private double weight(LocalDateTime time) {
+        double days = Duration.between(EPOCH, time).toMinutes() / (24.0 * 60);
+        return Math.pow(2, days / halfLifeDays);
+    }
+
+    private LocalDateTime loadWatermark() {
+        List<Timestamp> watermarks = jdbcTemplate.queryForList(SELECT_WATERMARK,
+                new MapSqlParameterSource("name", JOB_NAME), Timestamp.class);
+        return watermarks.isEmpty() ? null : watermarks.get(0).toLocalDateTime();
+    }
+
+    private void saveWatermark(LocalDateTime watermark) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("name", JOB_NAME)
+                .addValue("watermark", Timestamp.valueOf(watermark));
+        if (jdbcTemplate.update(UPDATE_WATERMARK, parameters) == 0) {
+            jdbcTemplate.update(INSERT_WATERMARK, parameters);
+        }
+    }
+
+    private int inTransaction(IntSupplier change) {
+        Integer rows = transactionTemplate.execute(status -> change.getAsInt());
+        return rows == null ? 0 : rows;
+    }
+}
@@ -2,28 +2,40 @@ package ru.practicum.shareit.item.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.impl.CompletedRentalCache;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemVersion;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.utils.ChangeTracker;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import java.util.stream.Collectors;
 
@@ -37,19 +49,31 @@ public class ItemServiceImpl implements ItemService {
 
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceValidator userExistenceValidator;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemGeoIndex itemGeoIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeTracker changeTracker;
+    private final CompletedRentalCache completedRentalCache;
+    private final CommentWriter commentWriter;
+
+    private static final int NEARBY_CHUNK_SIZE = 500;
 
     @Transactional
     @Override
     public ItemDto saveItem(Long userId, ItemDto itemDto) {
+        checkLocation(itemDto.getLat(), itemDto.getLon());
         ItemRequest itemRequest = null;
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found."));
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElseThrow(() -> new EntityNotFoundException("User not found."));
         if (itemDto.getRequestId() != null) {
             itemRequest = itemRequestRepository.findById(itemDto.getRequestId()).orElse(null);
         }
-        ItemDto response = toItemDto(itemRepository.save(toItem(itemDto, user, itemRequest)));
+        Item item = itemRepository.save(toItem(itemDto, user, itemRequest));
+        eventPublisher.publishEvent(ItemSavedEvent.of(item));
+        changeTracker.changed(userId);
+        ItemDto response = toItemDto(item);
         log.info("User {} add item {}", userId, response);
         return response;
     }
@@ -67,65 +91,178 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
+        if (itemDto.getLat() != null || itemDto.getLon() != null) {
+            checkLocation(itemDto.getLat(), itemDto.getLon());
+            item.setLat(itemDto.getLat());
+            item.setLon(itemDto.getLon());
+        }
+        Item savedItem = itemRepository.save(item);
+        eventPublisher.publishEvent(ItemSavedEvent.of(savedItem));
+        changeTracker.changed(ownerId);
+        bookingRepository.findBookerIdsByItemId(itemId).forEach(changeTracker::changed);
         log.info("Owner {} update item {}", ownerId, itemId);
-        return toItemDto(itemRepository.save(item));
+        return toItemDto(savedItem);
     }
 
     @Override
-    public List<ItemDtoByOwner> getUserItems(Long userId, int from, int size) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found."));
+    public List<ItemDtoByOwner> getUserItems(Long userId, int from, int size, boolean commentStats) {
+        userExistenceValidator.validate(userId);
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.DESC, "start"));
         List<Item> userItems = itemRepository.findByOwnerId(userId);
         List<Booking> bookings = bookingRepository.findByItemOwnerId(userId, pageRequest);
+        log.info("User {} getting all of his items", userId);
+        if (commentStats) {
+            return userItems.stream()
+                    .map(item -> withCommentStats(toItemDtoByOwner(item, List.of(), bookings), item))
+                    .collect(Collectors.toList());
+        }
         List<Comment> comments = commentRepository.findByItem_IdIn(userItems.stream()
                 .map(Item::getId)
                 .collect(Collectors.toList()));
-        log.info("User {} getting all of his items", userId);
         return userItems.stream()
                 .map(item -> toItemDtoByOwner(item, comments, bookings))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public ItemDtoByOwner getItem(Long userId, Long itemId) {
-        userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found."));
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> new EntityNotFoundException("Item not found."));
+    public ItemDtoByOwner getItem(Long userId, Long itemId, boolean commentStats) {
+        userExistenceValidator.validate(userId);
+        Item item = itemRepository.findByIdAndOwnerDeletedAtIsNull(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Item not found."));
         List<Booking> bookings = bookingRepository.findByItem_IdAndItemOwnerId(itemId, userId);
-        List<Comment> comments = commentRepository.findByItem_Id(itemId);
         log.info("User {} getting an item with id - {}", userId, itemId);
+        if (commentStats) {
+            return withCommentStats(toItemDtoByOwner(item, List.of(), bookings), item);
+        }
+        List<Comment> comments = commentRepository.findByItem_Id(itemId);
         return toItemDtoByOwner(item, comments, bookings);
     }
 
     @Override
-    public List<ItemDto> search(String text, int from, int size) {
+    public MultiGetResponse<ItemDtoByOwner> getItems(Long userId, Collection<Long> itemIds, boolean commentStats) {
+        userExistenceValidator.validate(userId);
+        Collection<Long> ids = MultiGetResponse.distinct(itemIds);
+        List<Item> items = itemRepository.findByIdInAndOwnerDeletedAtIsNull(ids);
+        log.info("User {} getting items {}", userId, ids);
+        if (items.isEmpty()) {
+            return MultiGetResponse.of(ids, List.of(), ItemDtoByOwner::getId);
+        }
+        List<Long> foundIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        List<Booking> bookings = bookingRepository.findByItem_IdInAndItemOwnerId(foundIds, userId);
+        List<ItemDtoByOwner> found;
+        if (commentStats) {
+            found = items.stream()
+                    .map(item -> withCommentStats(toItemDtoByOwner(item, List.of(), bookings), item))
+                    .collect(Collectors.toList());
+        } else {
+            Map<Long, List<Comment>> comments = commentRepository.findByItem_IdIn(foundIds).stream()
+                    .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+            found = items.stream()
+                    .map(item -> toItemDtoByOwner(item, comments.getOrDefault(item.getId(), List.of()), bookings))
+                    .collect(Collectors.toList());
+        }
+        return MultiGetResponse.of(ids, found, ItemDtoByOwner::getId);
+    }
+
+    @Override
+    public String getUserItemsEtag(Long userId, int from, int size, boolean commentStats) {
+        userExistenceValidator.validate(userId);
+        return changeTracker.listEtag(userId, "items", true, from, size, commentStats);
+    }
+
+    /**
+     * The owner's view contains the last and next bookings, which shift as time passes.
+     */
+    @Override
+    public String getItemEtag(Long userId, Long itemId, boolean commentStats) {
+        userExistenceValidator.validate(userId);
+        ItemVersion version = itemRepository.findVersionById(itemId).orElse(null);
+        if (version == null) {
+            return null;
+        }
+        boolean owner = version.getOwnerId().equals(userId);
+        String scope = commentStats ? "item-stats-" + itemId : "item-" + itemId;
+        return changeTracker.entityEtag(scope, userId, owner, version.getLastModified());
+    }
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size, boolean commentStats) {
         if (text.isBlank()) {
             return new ArrayList<>();
         }
-        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size);
-        List<Item> items = itemRepository.findAllByDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(text, text, pageRequest);
+        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size,
+                Sort.by(Sort.Direction.DESC, "popularity").and(Sort.by("id")));
+        List<Item> items = itemRepository.findAvailableByText(text, pageRequest);
         log.info("The user searches for items by text - \"{}\"", text);
         return items.stream()
-                .filter(Item::getAvailable)
-                .map(ItemMapper::toItemDto)
+                .map(item -> toItemDto(item, commentStats))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ItemDto> searchNearby(String text, double lat, double lon, double radiusKm, int from, int size,
+                                      boolean commentStats) {
+        List<Long> nearbyIds = itemGeoIndex.findWithin(lat, lon, radiusKm);
+        int offset = from > 0 ? from / size * size : 0;
+        List<Item> found = new ArrayList<>();
+        for (int start = 0; start < nearbyIds.size() && found.size() < offset + size; start += NEARBY_CHUNK_SIZE) {
+            List<Long> chunk = nearbyIds.subList(start, Math.min(start + NEARBY_CHUNK_SIZE, nearbyIds.size()));
+            Map<Long, Integer> order = new HashMap<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                order.put(chunk.get(i), i);
+            }
+            itemRepository.findAvailableByIdInAndText(chunk, text.trim()).stream()
+                    .sorted(Comparator.comparing(item -> order.get(item.getId())))
+                    .forEach(found::add);
+        }
+        log.info("The user searches for items by text - \"{}\" within {} km of ({}, {})", text, radiusKm, lat, lon);
+        return found.stream()
+                .skip(offset)
+                .limit(size)
+                .map(item -> toItemDto(item, commentStats))
                 .collect(Collectors.toList());
     }
 
     @Transactional
     @Override
     public CommentDto addComment(Long authorId, Long itemId, CommentDto commentDto) {
-        User user = userRepository.findById(authorId).orElseThrow(() -> new EntityNotFoundException("User not found."));
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> new EntityNotFoundException("Item not found."));
+        User user = userRepository.findByIdAndDeletedAtIsNull(authorId).orElseThrow(() -> new EntityNotFoundException("User not found."));
+        Item item = itemRepository.findByIdAndOwnerDeletedAtIsNull(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Item not found."));
         Comment comment = CommentMapper.toComment(commentDto, user, item);
-        Booking booking = bookingRepository
-                .findTopByStatusNotLikeAndBookerIdAndItemId(BookingStatus.REJECTED, authorId, itemId,
-                        Sort.by(Sort.Direction.ASC, "end"))
-                .orElseThrow(() -> new BadRequestException(String
-                        .format("The user %s didn't rent the item %s", user.getName(), item.getName())));
-        if (comment.getCreated().isAfter(booking.getEnd())) {
-            log.info("User {} wrote a comment", authorId);
-            return CommentMapper.toCommentDto(commentRepository.save(comment));
-        }
-        throw new BadRequestException("User hasn't completed the rental of the item yet.");
+        checkRentalCompleted(user, item, comment.getCreated());
+        if (commentWriter.offer(comment, item.getOwner().getId())) {
+            log.info("User {} wrote a comment, it is queued for writing", authorId);
+            return CommentMapper.toCommentDto(comment);
+        }
+        log.info("User {} wrote a comment", authorId);
+        Comment savedComment = commentRepository.save(comment);
+        itemRepository.commentAdded(itemId, savedComment.getId(), savedComment.getCreated(), LocalDateTime.now());
+        CommentDto response = CommentMapper.toCommentDto(savedComment);
+        changeTracker.changed(item.getOwner().getId());
+        return response;
+    }
+
+    private void checkRentalCompleted(User user, Item item, LocalDateTime now) {
+        if (completedRentalCache.contains(user.getId(), item.getId())) {
+            return;
+        }
+        if (bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(user.getId(), item.getId(),
+                BookingStatus.REJECTED, now)) {
+            completedRentalCache.add(user.getId(), item.getId());
+            return;
+        }
+        if (bookingRepository.existsByBookerIdAndItemIdAndStatusNot(user.getId(), item.getId(), BookingStatus.REJECTED)) {
+            throw new BadRequestException("User hasn't completed the rental of the item yet.");
+        }
+        throw new BadRequestException(String
+                .format("The user %s didn't rent the item %s", user.getName(), item.getName()));
+    }
+
+    private void checkLocation(Double lat, Double lon) {
+        if ((lat == null) != (lon == null)) {
+            throw new BadRequestException("Both lat and lon must be specified");
+        }
     }
 
     private Item getItemAndCheckPermission(long itemId, long userId) {
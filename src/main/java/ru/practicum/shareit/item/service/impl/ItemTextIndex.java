@@ -0,0 +1,68 @@
+package ru.practicum.shareit.item.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.event.ItemDeletedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemText;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.utils.TextIndex;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Inverted index over names and descriptions of available items, used to match item requests.
+ * Loaded at startup and kept current from {@link ItemSavedEvent}s and {@link UserDeletedEvent}s after commit.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemTextIndex {
+
+    private final ItemRepository itemRepository;
+
+    private final TextIndex index = new TextIndex();
+
+    @PostConstruct
+    public void load() {
+        List<ItemText> items = itemRepository.findByAvailableTrueAndOwnerDeletedAtIsNull();
+        for (ItemText item : items) {
+            index.put(item.getId(), text(item.getName(), item.getDescription()));
+        }
+        log.info("Item text index loaded with {} items", items.size());
+    }
+
+    @TransactionalEventListener
+    public void onItemSaved(ItemSavedEvent event) {
+        if (Boolean.TRUE.equals(event.getAvailable())) {
+            index.put(event.getItemId(), text(event.getName(), event.getDescription()));
+        } else {
+            index.remove(event.getItemId());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onItemDeleted(ItemDeletedEvent event) {
+        index.remove(event.getItemId());
+    }
+
+    /**
+     * Items of a deleted user are hidden right away; the rows are purged later.
+     */
+    @TransactionalEventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        itemRepository.findIdsByOwnerId(event.getUserId()).forEach(index::remove);
+    }
+
+    public List<TextIndex.Hit> search(String text, int limit) {
+        return index.search(text, limit);
+    }
+
+    private static String text(String name, String description) {
+        return name + " " + description;
+    }
+}
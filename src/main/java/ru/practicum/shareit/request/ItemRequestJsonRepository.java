@@ -0,0 +1,123 @@
+package ru.practicum.shareit.request;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Reads requests together with their items in a single query. The items of every request are
+ * aggregated into a JSON array by the database (json_agg on PostgreSQL, JSON_ARRAYAGG on H2),
+ * so no entities are hydrated and the rows are handed to the caller as they are fetched. Requests and items
+ * of deleted users are left out.
+ * <p>
+ * Rows are fetched {@code shareit.requests.json.fetch-size} at a time, and the streaming reads run in
+ * a read-only transaction because PostgreSQL only honours the fetch size with auto-commit off.
+ */
+@Repository
+public class ItemRequestJsonRepository {
+
+    private static final String POSTGRES_ITEMS = "COALESCE((SELECT json_agg(json_strip_nulls(json_build_object("
+            + "'id', i.id, 'name', i.name, 'description', i.description, 'ownerId', i.owner, "
+            + "'available', i.available, 'requestId', i.request, 'lat', i.lat, 'lon', i.lon)) ORDER BY i.id) "
+            + "FROM items i JOIN users o ON o.id = i.owner WHERE i.request = r.id AND o.deleted_at IS NULL), "
+            + "'[]')::text";
+    private static final String H2_ITEMS = "COALESCE((SELECT JSON_ARRAYAGG(JSON_OBJECT("
+            + "'id': i.id, 'name': i.name, 'description': i.description, 'ownerId': i.owner, "
+            + "'available': i.available, 'requestId': i.request, 'lat': i.lat, 'lon': i.lon ABSENT ON NULL) "
+            + "ORDER BY i.id) FROM items i JOIN users o ON o.id = i.owner "
+            + "WHERE i.request = r.id AND o.deleted_at IS NULL), JSON '[]')";
+    private static final String FEED_ORDER = " ORDER BY r.create_date DESC, r.id DESC";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String select;
+
+    public ItemRequestJsonRepository(DataSource dataSource,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${shareit.requests.json.fetch-size:500}") int fetchSize)
+            throws MetaDataAccessException {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        this.select = "SELECT r.id, r.description, r.requestor, r.create_date, r.status, "
+                + ("PostgreSQL".equals(product) ? POSTGRES_ITEMS : H2_ITEMS) + " AS items FROM requests r "
+                + "JOIN users u ON u.id = r.requestor AND u.deleted_at IS NULL ";
+    }
+
+    public void findByRequestorId(Long requestorId, Consumer<ItemRequestRow> action) {
+        query(select + "WHERE r.requestor = :requestorId" + FEED_ORDER,
+                new MapSqlParameterSource("requestorId", requestorId), action);
+    }
+
+    public void findByRequestorIdNot(Long requestorId, Collection<ItemRequestStatus> statuses, int offset, int limit,
+                                     Consumer<ItemRequestRow> action) {
+        query(select + "WHERE r.requestor <> :requestorId AND r.status IN (:statuses)" + FEED_ORDER
+                        + " LIMIT :limit OFFSET :offset",
+                new MapSqlParameterSource("requestorId", requestorId)
+                        .addValue("statuses", names(statuses))
+                        .addValue("limit", limit)
+                        .addValue("offset", offset),
+                action);
+    }
+
+    public void findByRequestorIdNotBefore(Long requestorId, Collection<ItemRequestStatus> statuses,
+                                           LocalDateTime created, Long id, int limit,
+                                           Consumer<ItemRequestRow> action) {
+        query(select + "WHERE r.requestor <> :requestorId AND r.status IN (:statuses) "
+                        + "AND (r.create_date < :created OR (r.create_date = :created AND r.id < :id))"
+                        + FEED_ORDER + " LIMIT :limit",
+                new MapSqlParameterSource("requestorId", requestorId)
+                        .addValue("statuses", names(statuses))
+                        .addValue("created", created)
+                        .addValue("id", id)
+                        .addValue("limit", limit),
+                action);
+    }
+
+    public Optional<ItemRequestRow> findById(Long id) {
+        List<ItemRequestRow> rows = jdbcTemplate.query(select + "WHERE r.id = :id",
+                new MapSqlParameterSource("id", id), (rs, rowNum) -> toRow(rs));
+        return rows.stream().findFirst();
+    }
+
+    private static List<String> names(Collection<ItemRequestStatus> statuses) {
+        return statuses.stream().map(Enum::name).collect(Collectors.toList());
+    }
+
+    private void query(String sql, MapSqlParameterSource parameters, Consumer<ItemRequestRow> action) {
+        RowCallbackHandler handler = rs -> action.accept(toRow(rs));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, parameters, handler));
+    }
+
+    private static ItemRequestRow toRow(ResultSet rs) throws SQLException {
+        return new ItemRequestRow(rs.getLong("id"),
+                rs.getString("description"),
+                rs.getLong("requestor"),
+                rs.getTimestamp("create_date").toLocalDateTime(),
+                rs.getString("status"),
+                rs.getString("items"));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.request;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.utils.TextIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Candidate items recorded for a request by the matcher.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemRequestMatchRepository {
+
+    private static final String SELECT_ITEMS = "SELECT i.id, i.name, i.description, i.owner, i.available, "
+            + "i.request, i.lat, i.lon FROM request_matches m "
+            + "JOIN items i ON i.id = m.item_id "
+            + "JOIN requests r ON r.id = m.request_id "
+            + "WHERE m.request_id = ? AND i.owner <> r.requestor AND i.available "
+            + "ORDER BY m.score DESC, i.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void replace(Long requestId, List<TextIndex.Hit> hits) {
+        jdbcTemplate.update("DELETE FROM request_matches WHERE request_id = ?", requestId);
+        List<Object[]> rows = new ArrayList<>(hits.size());
+        for (TextIndex.Hit hit : hits) {
+            rows.add(new Object[]{requestId, hit.getId(), hit.getScore()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO request_matches (request_id, item_id, score) VALUES (?, ?, ?)", rows);
+    }
+
+    /**
+     * Matched items that are still available and not owned by the requestor, best match first.
+     */
+    public List<ItemDto> findItems(Long requestId) {
+        return jdbcTemplate.query(SELECT_ITEMS, (rs, rowNum) -> new ItemDto(rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getLong("owner"),
+                rs.getBoolean("available"),
+                rs.getObject("request", Long.class),
+                rs.getObject("lat", Double.class),
+                rs.getObject("lon", Double.class)), requestId);
+    }
+}
@@ -1,13 +1,63 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findByRequestorId(Long requestorId, Sort sort);
 
+    Optional<ItemRequest> findByIdAndRequestorDeletedAtIsNull(Long id);
+
+    List<ItemRequest> findByRequestorIdNotAndRequestorDeletedAtIsNullAndStatusIn(
+            Long requestorId, Collection<ItemRequestStatus> statuses, Pageable pageable);
+
+    List<ItemRequest> findByIdGreaterThanAndRequestorIdNotAndRequestorDeletedAtIsNull(Long id, Long requestorId,
+                                                                                     Pageable pageable);
+
+    Page<ItemRequest> findByStatusAndRequestorDeletedAtIsNull(ItemRequestStatus status, Pageable pageable);
+
+    @Query("select r.id as id, r.description as description, r.requestor.id as requestorId " +
+            "from ItemRequest r where r.status = :status and r.requestor.deletedAt is null")
+    List<ItemRequestText> findTextByStatus(@Param("status") ItemRequestStatus status);
+
+    @Query("select r from ItemRequest r where r.requestor.id <> :requestorId and r.requestor.deletedAt is null " +
+            "and r.status in :statuses " +
+            "and (r.created < :created or (r.created = :created and r.id < :id))")
+    List<ItemRequest> findByRequestorIdNotBefore(@Param("requestorId") Long requestorId,
+                                                @Param("statuses") Collection<ItemRequestStatus> statuses,
+                                                @Param("created") LocalDateTime created,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query("select r.id from ItemRequest r where r.status = :status " +
+            "and exists (select i.id from Item i where i.request = r) order by r.id")
+    List<Long> findIdsWithItems(@Param("status") ItemRequestStatus status, Pageable pageable);
+
+    @Query("select r.id from ItemRequest r where r.status = :status and r.created < :created " +
+            "and not exists (select i.id from Item i where i.request = r) order by r.id")
+    List<Long> findIdsWithoutItemsCreatedBefore(@Param("status") ItemRequestStatus status,
+                                                @Param("created") LocalDateTime created,
+                                                Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update ItemRequest r set r.status = :status where r.id in :ids and r.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") ItemRequestStatus from,
+                     @Param("status") ItemRequestStatus status);
+
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.request;
+
+public interface ItemRequestText {
+
+    Long getId();
+
+    String getDescription();
+
+    Long getRequestorId();
+
+}
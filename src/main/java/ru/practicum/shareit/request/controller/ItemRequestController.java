@@ -1,8 +1,14 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
@@ -21,6 +27,8 @@ import java.util.List;
 public class ItemRequestController {
 
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
     private final ItemRequestService itemRequestService;
 
     @PostMapping
@@ -36,11 +44,55 @@ public class ItemRequestController {
         return itemRequestService.getUserRequests(userId);
     }
 
+    /**
+     * With {@code stream=true} the requests and their items are assembled into JSON by the database
+     * and streamed as the rows are read.
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUserRequests(@RequestHeader(USER_ID_HEADER) Long userId) {
+        return streamed(itemRequestService.streamUserRequests(userId));
+    }
+
+    /**
+     * Pages either by offset ({@code from}) or, when {@code after} is given, by the cursor
+     * returned in the X-Next-Cursor header of the previous page. Fulfilled and expired requests
+     * are left out unless {@code includeClosed} is set.
+     */
     @GetMapping("/all")
-    public List<ItemRequestDto> allRequests(@RequestHeader(USER_ID_HEADER) Long userId,
-                                            @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                            @Positive @RequestParam(defaultValue = "10") int size) {
-        return itemRequestService.getAllRequests(userId, from, size);
+    public ResponseEntity<List<ItemRequestDto>> allRequests(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                            @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                            @Positive @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(defaultValue = "false") boolean includeClosed) {
+        List<ItemRequestDto> requests = after == null
+                ? itemRequestService.getAllRequests(userId, from, size, includeClosed)
+                : itemRequestService.getAllRequestsAfter(userId, after, size, includeClosed);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (requests.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, ItemRequestCursor.of(requests.get(size - 1)).encode());
+        }
+        return response.body(requests);
+    }
+
+    /**
+     * Streaming variant of {@link #allRequests}. The header is written before the rows are read,
+     * so no X-Next-Cursor is returned; an {@code after} cursor from a buffered page is accepted.
+     */
+    @GetMapping(value = "/all", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllRequests(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                                   @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                                   @Positive @RequestParam(defaultValue = "10") int size,
+                                                                   @RequestParam(required = false) String after,
+                                                                   @RequestParam(defaultValue = "false") boolean includeClosed) {
+        return streamed(itemRequestService.streamAllRequests(userId, from, size, after, includeClosed));
+    }
+
+    @GetMapping("/search")
+    public List<ItemRequestDto> search(@RequestHeader(USER_ID_HEADER) Long userId,
+                                       @RequestParam String text,
+                                       @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                       @Positive @RequestParam(defaultValue = "10") int size) {
+        return itemRequestService.searchRequests(userId, text, from, size);
     }
 
     @GetMapping("/{requestId}")
@@ -48,4 +100,30 @@ public class ItemRequestController {
                                       @PathVariable Long requestId) {
         return itemRequestService.getRequest(userId, requestId);
     }
+
+    /**
+     * Server-Sent Events with requests of other users as they are created. A reconnecting client
+     * sends Last-Event-ID and first receives the requests it missed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(USER_ID_HEADER) Long userId,
+                             @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        return itemRequestService.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping("/{requestId}/matches")
+    public List<ItemDto> matches(@RequestHeader(USER_ID_HEADER) Long userId,
+                                 @PathVariable Long requestId) {
+        return itemRequestService.getMatches(userId, requestId);
+    }
+
+    @GetMapping(value = "/{requestId}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamItemRequest(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                                   @PathVariable Long requestId) {
+        return streamed(itemRequestService.streamRequest(userId, requestId));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> streamed(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
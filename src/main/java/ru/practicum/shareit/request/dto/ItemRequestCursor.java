@@ -0,0 +1,43 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Position in the request feed, which is ordered by (created, id) descending.
+ * Encoded as base-36 epoch microseconds and id, e.g. {@code "1b2c3d4e5f.2s"}.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemRequestCursor {
+
+    private final LocalDateTime created;
+    private final Long id;
+
+    public static ItemRequestCursor of(ItemRequestDto itemRequestDto) {
+        return new ItemRequestCursor(itemRequestDto.getCreated(), itemRequestDto.getId());
+    }
+
+    public static ItemRequestCursor decode(String cursor) {
+        int separator = cursor.indexOf('.');
+        try {
+            long micros = Long.parseLong(cursor.substring(0, separator), 36);
+            long id = Long.parseLong(cursor.substring(separator + 1), 36);
+            Instant instant = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+            return new ItemRequestCursor(LocalDateTime.ofInstant(instant, ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor " + cursor);
+        }
+    }
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, created.toInstant(ZoneOffset.UTC));
+        return Long.toString(micros, 36) + "." + Long.toString(id, 36);
+    }
+}
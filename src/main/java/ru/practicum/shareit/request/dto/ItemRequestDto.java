@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
 
 import javax.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
@@ -25,6 +26,7 @@ public class ItemRequestDto {
     private String description;
     private Long requestorId;
     private LocalDateTime created;
+    private ItemRequestStatus status;
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<ItemDto> items;
 }
@@ -1,10 +1,13 @@
 package ru.practicum.shareit.request.dto;
 
-import ru.practicum.shareit.item.dto.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
+import com.fasterxml.jackson.core.JsonGenerator;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.LongHashMap;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,23 +29,54 @@ public class ItemRequestMapper {
         itemRequestDto.setId(itemRequest.getId());
         itemRequestDto.setDescription(itemRequest.getDescription());
         itemRequestDto.setCreated(itemRequest.getCreated());
+        itemRequestDto.setStatus(itemRequest.getStatus());
         itemRequestDto.setRequestorId(itemRequest.getRequestor().getId());
         return itemRequestDto;
     }
 
-    public static ItemRequestDto toDtoWithItems(ItemRequest itemRequest, Collection<Item> itemsOnRequests) {
+    public static ItemRequestDto toDtoWithItems(ItemRequest itemRequest, Collection<ItemDto> itemsOnRequests) {
         ItemRequestDto itemRequestDto = toDto(itemRequest);
-        List<Item> itemsOnRequest = itemsOnRequests.stream()
-                .filter(item -> item.getRequest().getId().equals(itemRequest.getId()))
-                .collect(Collectors.toList());
-        itemRequestDto.setItems(ItemMapper.toItemDto(itemsOnRequest));
+        itemRequestDto.setItems(itemsOnRequests.stream()
+                .filter(item -> itemRequest.getId().equals(item.getRequestId()))
+                .collect(Collectors.toList()));
         return itemRequestDto;
     }
 
-    public static List<ItemRequestDto> toDtoWithItems(Collection<ItemRequest> itemRequests, Collection<Item> itemsOnRequests) {
-        return itemRequests.stream()
-                .map(itemRequest -> toDtoWithItems(itemRequest, itemsOnRequests))
-                .collect(Collectors.toList());
+    /**
+     * Groups the items by request id in one pass, so the cost is linear in requests plus items.
+     */
+    public static List<ItemRequestDto> toDtoWithItems(Collection<ItemRequest> itemRequests,
+                                                      Collection<ItemDto> itemsOnRequests) {
+        LongHashMap<List<ItemDto>> itemsByRequest = new LongHashMap<>(itemRequests.size());
+        for (ItemDto item : itemsOnRequests) {
+            if (item.getRequestId() != null) {
+                itemsByRequest.computeIfAbsent(item.getRequestId(), requestId -> new ArrayList<>()).add(item);
+            }
+        }
+        List<ItemRequestDto> itemRequestDtos = new ArrayList<>(itemRequests.size());
+        for (ItemRequest itemRequest : itemRequests) {
+            ItemRequestDto itemRequestDto = toDto(itemRequest);
+            List<ItemDto> items = itemsByRequest.get(itemRequest.getId());
+            itemRequestDto.setItems(items == null ? new ArrayList<>() : items);
+            itemRequestDtos.add(itemRequestDto);
+        }
+        return itemRequestDtos;
     }
 
+    /**
+     * Writes a request assembled by the database in the same shape as {@link ItemRequestDto};
+     * the items are copied to the output as they came from the database.
+     */
+    public static void writeJson(ItemRequestRow row, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("description", row.getDescription());
+        generator.writeNumberField("requestorId", row.getRequestorId());
+        generator.writeFieldName("created");
+        generator.writeObject(row.getCreated());
+        generator.writeStringField("status", row.getStatus());
+        generator.writeFieldName("items");
+        generator.writeRawValue(row.getItemsJson());
+        generator.writeEndObject();
+    }
 }
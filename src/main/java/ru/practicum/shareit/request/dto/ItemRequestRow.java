@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request as returned by the database-side assembly: the request columns plus its items
+ * already serialized as a JSON array.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemRequestRow {
+
+    private final Long id;
+    private final String description;
+    private final Long requestorId;
+    private final LocalDateTime created;
+    private final String status;
+    private final String itemsJson;
+}
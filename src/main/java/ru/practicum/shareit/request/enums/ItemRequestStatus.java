@@ -0,0 +1,7 @@
+package ru.practicum.shareit.request.enums;
+
+public enum ItemRequestStatus {
+    OPEN,
+    FULFILLED,
+    EXPIRED
+}
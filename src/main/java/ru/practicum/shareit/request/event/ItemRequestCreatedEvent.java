@@ -0,0 +1,28 @@
+package ru.practicum.shareit.request.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the request service when a request is created.
+ * Listeners should react after the transaction commits.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemRequestCreatedEvent {
+
+    private final Long requestId;
+    private final Long requestorId;
+    private final String description;
+    private final LocalDateTime created;
+
+    public static ItemRequestCreatedEvent of(ItemRequest itemRequest) {
+        return new ItemRequestCreatedEvent(itemRequest.getId(), itemRequest.getRequestor().getId(),
+                itemRequest.getDescription(), itemRequest.getCreated());
+    }
+}
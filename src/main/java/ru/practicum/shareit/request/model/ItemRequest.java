@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
@@ -28,4 +29,7 @@ public class ItemRequest {
     private User requestor;
     @Column(name = "create_date")
     private LocalDateTime created = LocalDateTime.now().withNano(0);
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private ItemRequestStatus status = ItemRequestStatus.OPEN;
 }
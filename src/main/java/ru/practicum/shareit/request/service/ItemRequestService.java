@@ -1,5 +1,8 @@
 package ru.practicum.shareit.request.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
@@ -10,8 +13,37 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getUserRequests(Long userId);
 
-    List<ItemRequestDto> getAllRequests(Long userId, int from, int size);
+    /**
+     * The feed of requests of other users; only open requests unless {@code includeClosed}.
+     */
+    List<ItemRequestDto> getAllRequests(Long userId, int from, int size, boolean includeClosed);
+
+    List<ItemRequestDto> getAllRequestsAfter(Long userId, String after, int size, boolean includeClosed);
 
     ItemRequestDto getRequest(Long userId, Long requestId);
 
+    /**
+     * Open requests of other users whose description matches the text, most relevant first.
+     */
+    List<ItemRequestDto> searchRequests(Long userId, String text, int from, int size);
+
+    /**
+     * Items found for the request by the matcher, best match first. Empty until the request is matched.
+     */
+    List<ItemDto> getMatches(Long userId, Long requestId);
+
+    /**
+     * The same feeds assembled by the database. The user and the request are checked
+     * before the body is returned, the rows are read while the body is written.
+     */
+    StreamingResponseBody streamUserRequests(Long userId);
+
+    StreamingResponseBody streamAllRequests(Long userId, int from, int size, String after, boolean includeClosed);
+
+    StreamingResponseBody streamRequest(Long userId, Long requestId);
+
+    /**
+     * Pushes requests of other users as they are created, starting after {@code lastEventId} when given.
+     */
+    SseEmitter subscribe(Long userId, Long lastEventId);
 }
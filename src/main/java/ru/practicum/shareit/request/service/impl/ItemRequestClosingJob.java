@@ -0,0 +1,70 @@
+package ru.practicum.shareit.request.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Closes open requests so they leave the feed: requests that got an item become FULFILLED,
+ * requests without items older than the expiry period become EXPIRED. Works in batches of ids,
+ * each updated in its own short transaction, so the feed is never locked for long.
+ */
+@Component
+@Slf4j
+public class ItemRequestClosingJob {
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRequestTimeline itemRequestTimeline;
+    private final ItemRequestTextIndex itemRequestTextIndex;
+
+    private final int expireDays;
+    private final int batchSize;
+
+    public ItemRequestClosingJob(ItemRequestRepository itemRequestRepository,
+                                 ItemRequestTimeline itemRequestTimeline,
+                                 ItemRequestTextIndex itemRequestTextIndex,
+                                 @Value("${shareit.requests.closing.expire-days:90}") int expireDays,
+                                 @Value("${shareit.requests.closing.batch-size:500}") int batchSize) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRequestTimeline = itemRequestTimeline;
+        this.itemRequestTextIndex = itemRequestTextIndex;
+        this.expireDays = expireDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.requests.closing.interval-ms:3600000}")
+    public void close() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusDays(expireDays);
+        int fulfilled = close(ItemRequestStatus.FULFILLED,
+                page -> itemRequestRepository.findIdsWithItems(ItemRequestStatus.OPEN, page));
+        int expired = close(ItemRequestStatus.EXPIRED,
+                page -> itemRequestRepository.findIdsWithoutItemsCreatedBefore(ItemRequestStatus.OPEN,
+                        expiredBefore, page));
+        if (fulfilled + expired > 0) {
+            log.info("Closed item requests: {} fulfilled, {} expired", fulfilled, expired);
+        }
+    }
+
+    private int close(ItemRequestStatus status, Function<PageRequest, List<Long>> candidates) {
+        int closed = 0;
+        List<Long> ids;
+        do {
+            ids = candidates.apply(PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            closed += itemRequestRepository.updateStatus(ids, ItemRequestStatus.OPEN, status);
+            itemRequestTimeline.remove(ids);
+            itemRequestTextIndex.remove(ids);
+        } while (ids.size() == batchSize);
+        return closed;
+    }
+}
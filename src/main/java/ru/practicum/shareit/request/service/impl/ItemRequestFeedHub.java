@@ -0,0 +1,280 @@
+package ru.practicum.shareit.request.service.impl;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Fans new requests out to Server-Sent Events subscribers after commit. Every subscriber has
+ * a bounded buffer drained by a small sender pool, at most one task per subscriber at a time,
+ * so a slow connection only holds its own buffer; a subscriber whose buffer overflows is
+ * disconnected and can resume with Last-Event-ID, the id of the last request it received.
+ * <p>
+ * Heartbeats go through the same drain task as requests, so they never race it for the emitter.
+ * A send that blocks longer than the write timeout gets its subscriber evicted and the sending
+ * thread interrupted, so a stalled connection cannot hold a sender thread for good. Emitters are
+ * only completed from the drain task, as completing one waits for a send in progress.
+ */
+@Component
+@Slf4j
+public class ItemRequestFeedHub {
+
+    private static final String EVENT_NAME = "request";
+
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int replayLimit;
+    private final long writeTimeoutNanos;
+    private final ExecutorService sender;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public ItemRequestFeedHub(ItemRequestRepository itemRequestRepository,
+                              @Value("${shareit.requests.stream.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${shareit.requests.stream.buffer-size:100}") int bufferSize,
+                              @Value("${shareit.requests.stream.replay-limit:500}") int replayLimit,
+                              @Value("${shareit.requests.stream.sender-threads:4}") int senderThreads,
+                              @Value("${shareit.requests.stream.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.replayLimit = replayLimit;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "request-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Subscribes the user to requests of other users. With {@code lastEventId} the requests created
+     * after it are sent first, up to the replay limit. The subscriber is registered before the replay
+     * is loaded, so nothing committed in between is lost, but is not drained until the replay is set.
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        return subscribe(userId, lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long userId, Long lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (lastEventId != null) {
+            subscriber.replay = itemRequestRepository
+                    .findByIdGreaterThanAndRequestorIdNotAndRequestorDeletedAtIsNull(lastEventId, userId,
+                            PageRequest.of(0, replayLimit, Sort.by("id"))).stream()
+                    .map(ItemRequestMapper::toDto)
+                    .collect(Collectors.toList());
+        }
+        subscriber.ready = true;
+        schedule(subscriber);
+        log.debug("User {} subscribed to requests after {}", userId, lastEventId);
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onRequestCreated(ItemRequestCreatedEvent event) {
+        publish(new ItemRequestDto(event.getRequestId(), event.getDescription(), event.getRequestorId(),
+                event.getCreated(), ItemRequestStatus.OPEN, null));
+    }
+
+    public void publish(ItemRequestDto request) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.getUserId().equals(request.getRequestorId())) {
+                continue;
+            }
+            if (subscriber.getBuffer().offer(request)) {
+                schedule(subscriber);
+            } else {
+                evict(subscriber);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.requests.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (isStalled(subscriber, now)) {
+                continue;
+            }
+            subscriber.getHeartbeatDue().set(true);
+            schedule(subscriber);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.ready && subscriber.getScheduled().compareAndSet(false, true)) {
+            execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            sendPending(subscriber);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            log.debug("Subscriber of user {} is gone: {}", subscriber.getUserId(), e.getMessage());
+        } finally {
+            Thread.interrupted();
+            subscriber.getScheduled().set(false);
+        }
+        if (!subscribers.contains(subscriber)) {
+            subscriber.getEmitter().complete();
+        } else if (!subscriber.getBuffer().isEmpty() || subscriber.getHeartbeatDue().get()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void sendPending(Subscriber subscriber) throws IOException {
+        List<ItemRequestDto> replay = subscriber.replay;
+        if (replay != null) {
+            subscriber.replay = null;
+            for (ItemRequestDto request : replay) {
+                if (!send(subscriber, event(request))) {
+                    return;
+                }
+                subscriber.getReplayed().add(request.getId());
+            }
+        }
+        ItemRequestDto request;
+        while ((request = subscriber.getBuffer().poll()) != null) {
+            if (!subscriber.getReplayed().contains(request.getId()) && !send(subscriber, event(request))) {
+                return;
+            }
+        }
+        if (subscriber.getHeartbeatDue().getAndSet(false)) {
+            send(subscriber, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    /**
+     * Sends the event unless the subscriber has been evicted, and tells whether it is still subscribed.
+     */
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        if (!subscribers.contains(subscriber)) {
+            return false;
+        }
+        synchronized (subscriber) {
+            subscriber.sendingThread = Thread.currentThread();
+            subscriber.sendingSince = System.nanoTime();
+        }
+        try {
+            subscriber.getEmitter().send(event);
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sendingThread = null;
+            }
+        }
+        return subscribers.contains(subscriber);
+    }
+
+    private static SseEmitter.SseEventBuilder event(ItemRequestDto request) {
+        return SseEmitter.event()
+                .id(String.valueOf(request.getId()))
+                .name(EVENT_NAME)
+                .data(request);
+    }
+
+    /**
+     * Evicts the subscriber and interrupts its sender when a send has been blocked for longer than
+     * the write timeout.
+     */
+    private boolean isStalled(Subscriber subscriber, long now) {
+        synchronized (subscriber) {
+            Thread thread = subscriber.sendingThread;
+            if (thread == null || now - subscriber.sendingSince < writeTimeoutNanos) {
+                return false;
+            }
+            if (subscribers.remove(subscriber)) {
+                evicted.incrementAndGet();
+                log.info("Subscriber of user {} blocked a send for over {} ms and was disconnected",
+                        subscriber.getUserId(), TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+            }
+            thread.interrupt();
+            return true;
+        }
+    }
+
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            evicted.incrementAndGet();
+            log.info("Subscriber of user {} fell {} requests behind and was disconnected",
+                    subscriber.getUserId(), bufferSize);
+            schedule(subscriber);
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Request feed is stopped");
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<ItemRequestDto> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final Set<Long> replayed = new HashSet<>();
+        private volatile List<ItemRequestDto> replay;
+        private volatile boolean ready;
+        private Thread sendingThread;
+        private long sendingSince;
+    }
+}
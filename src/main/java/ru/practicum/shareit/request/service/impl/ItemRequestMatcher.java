@@ -0,0 +1,99 @@
+package ru.practicum.shareit.request.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.service.impl.ItemTextIndex;
+import ru.practicum.shareit.request.ItemRequestMatchRepository;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.utils.TextIndex;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches new requests to available items off the request thread. Requests are queued after
+ * commit on a fixed pool with a bounded queue; when the queue is full the request is not matched
+ * and the drop is counted, so a burst of requests cannot pile up work or slow down callers.
+ */
+@Component
+@Slf4j
+public class ItemRequestMatcher {
+
+    private final ItemTextIndex itemTextIndex;
+    private final ItemRequestMatchRepository itemRequestMatchRepository;
+
+    private final int threads;
+    private final int queueCapacity;
+    private final int limit;
+
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    public ItemRequestMatcher(ItemTextIndex itemTextIndex,
+                              ItemRequestMatchRepository itemRequestMatchRepository,
+                              @Value("${shareit.requests.matching.threads:2}") int threads,
+                              @Value("${shareit.requests.matching.queue-capacity:1000}") int queueCapacity,
+                              @Value("${shareit.requests.matching.limit:20}") int limit) {
+        this.itemTextIndex = itemTextIndex;
+        this.itemRequestMatchRepository = itemRequestMatchRepository;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.limit = limit;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "request-matcher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> dropped.incrementAndGet());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener
+    public void onRequestCreated(ItemRequestCreatedEvent event) {
+        executor.execute(() -> match(event.getRequestId(), event.getDescription()));
+    }
+
+    public void match(Long requestId, String description) {
+        try {
+            List<TextIndex.Hit> hits = itemTextIndex.search(description, limit);
+            itemRequestMatchRepository.replace(requestId, hits);
+            matched.incrementAndGet();
+            log.debug("Request {} matched {} items", requestId, hits.size());
+        } catch (RuntimeException e) {
+            log.error("Matching of request {} failed", requestId, e);
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getMatchedCount() {
+        return matched.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -1,23 +1,46 @@
 package ru.practicum.shareit.request.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.EntityNotFoundException;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestJsonRepository;
+import ru.practicum.shareit.request.ItemRequestMatchRepository;
 import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.utils.TextIndex;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -27,38 +50,79 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final UserRepository userRepository;
+    private final UserExistenceValidator userExistenceValidator;
     private final ItemRequestRepository itemRequestRepository;
     private final ItemRepository itemRepository;
+    private final ItemRequestJsonRepository itemRequestJsonRepository;
+    private final ObjectMapper objectMapper;
+    private final ItemRequestMatchRepository itemRequestMatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ItemRequestFeedHub itemRequestFeedHub;
+    private final ItemRequestTimeline itemRequestTimeline;
+    private final ItemRequestTextIndex itemRequestTextIndex;
+
+    private static final Sort FEED_SORT = Sort.by(Sort.Direction.DESC, "created", "id");
+    private static final Set<ItemRequestStatus> OPEN = EnumSet.of(ItemRequestStatus.OPEN);
+    private static final Set<ItemRequestStatus> ALL = EnumSet.allOf(ItemRequestStatus.class);
 
     @Transactional
     @Override
     public ItemRequestDto createRequest(Long userId, ItemRequestDto itemRequestDto) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
         ItemRequest itemRequest = itemRequestRepository.save(ItemRequestMapper.toItemRequest(itemRequestDto, user));
+        eventPublisher.publishEvent(ItemRequestCreatedEvent.of(itemRequest));
         log.info("A new item request has added: User - {}, request - {}", userId, itemRequest);
         return ItemRequestMapper.toDto(itemRequest);
     }
 
     @Override
     public List<ItemRequestDto> getUserRequests(Long userId) {
-        userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        userExistenceValidator.validate(userId);
         List<ItemRequest> itemRequests = itemRequestRepository
                 .findByRequestorId(userId, Sort.by("created").descending());
-        List<Long> requestsIds = itemRequests.stream()
-                .map(ItemRequest::getId)
-                .collect(Collectors.toList());
-        List<Item> itemsOnRequests = itemRepository.findByRequestIdIn(requestsIds);
-        return ItemRequestMapper.toDtoWithItems(itemRequests, itemsOnRequests);
+        return withItems(itemRequests);
     }
 
     @Override
-    public List<ItemRequestDto> getAllRequests(Long userId, int from, int size) {
-        userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by("created").descending());
-        List<ItemRequest> itemRequests = itemRequestRepository.findAll(pageRequest).stream()
-                .filter(itemRequest -> !itemRequest.getRequestor().getId().equals(userId))
-                .collect(Collectors.toList());
-        List<Item> itemsOnRequests = itemRepository.findByRequestIdIn(itemRequests.stream()
+    public List<ItemRequestDto> getAllRequests(Long userId, int from, int size, boolean includeClosed) {
+        userExistenceValidator.validate(userId);
+        if (!includeClosed) {
+            Optional<List<ItemRequestDto>> buffered = itemRequestTimeline.page(userId, from, size);
+            if (buffered.isPresent()) {
+                return buffered.get();
+            }
+        }
+        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, FEED_SORT);
+        List<ItemRequest> itemRequests = itemRequestRepository
+                .findByRequestorIdNotAndRequestorDeletedAtIsNullAndStatusIn(userId, statuses(includeClosed),
+                        pageRequest);
+        return withItems(itemRequests);
+    }
+
+    @Override
+    public List<ItemRequestDto> getAllRequestsAfter(Long userId, String after, int size, boolean includeClosed) {
+        ItemRequestCursor cursor = ItemRequestCursor.decode(after);
+        userExistenceValidator.validate(userId);
+        if (!includeClosed) {
+            Optional<List<ItemRequestDto>> buffered = itemRequestTimeline.pageAfter(userId, cursor, size);
+            if (buffered.isPresent()) {
+                return buffered.get();
+            }
+        }
+        List<ItemRequest> itemRequests = itemRequestRepository.findByRequestorIdNotBefore(userId,
+                statuses(includeClosed), cursor.getCreated(), cursor.getId(), PageRequest.of(0, size, FEED_SORT));
+        return withItems(itemRequests);
+    }
+
+    private static Set<ItemRequestStatus> statuses(boolean includeClosed) {
+        return includeClosed ? ALL : OPEN;
+    }
+
+    private List<ItemRequestDto> withItems(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ItemDto> itemsOnRequests = itemRepository.findDtoByRequestIdIn(itemRequests.stream()
                 .map(ItemRequest::getId)
                 .collect(Collectors.toList()));
         return ItemRequestMapper.toDtoWithItems(itemRequests, itemsOnRequests);
@@ -66,10 +130,98 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public ItemRequestDto getRequest(Long userId, Long requestId) {
-        userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
+        userExistenceValidator.validate(userId);
+        ItemRequest itemRequest = itemRequestRepository.findByIdAndRequestorDeletedAtIsNull(requestId)
                 .orElseThrow(() -> new EntityNotFoundException("Request not found"));
-            List<Item> itemsByRequestId = itemRepository.findByRequestId(requestId);
+        List<ItemDto> itemsByRequestId = itemRepository.findDtoByRequestIdIn(List.of(requestId));
         return ItemRequestMapper.toDtoWithItems(itemRequest, itemsByRequestId);
     }
+
+    @Override
+    public List<ItemRequestDto> searchRequests(Long userId, String text, int from, int size) {
+        userExistenceValidator.validate(userId);
+        if (text.isBlank()) {
+            return new ArrayList<>();
+        }
+        int offset = from > 0 ? from / size * size : 0;
+        List<TextIndex.Hit> hits = itemRequestTextIndex.search(userId, text, offset + size);
+        if (hits.size() <= offset) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = hits.subList(offset, hits.size()).stream()
+                .map(TextIndex.Hit::getId)
+                .collect(Collectors.toList());
+        Map<Long, ItemRequest> found = itemRequestRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        List<ItemRequest> ranked = ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        log.info("The user searches for requests by text - \"{}\"", text);
+        return withItems(ranked);
+    }
+
+    @Override
+    public List<ItemDto> getMatches(Long userId, Long requestId) {
+        userExistenceValidator.validate(userId);
+        if (!itemRequestRepository.existsById(requestId)) {
+            throw new EntityNotFoundException("Request not found");
+        }
+        return itemRequestMatchRepository.findItems(requestId);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        userExistenceValidator.validate(userId);
+        return itemRequestFeedHub.subscribe(userId, lastEventId);
+    }
+
+    @Override
+    public StreamingResponseBody streamUserRequests(Long userId) {
+        userExistenceValidator.validate(userId);
+        return streamArray(action -> itemRequestJsonRepository.findByRequestorId(userId, action));
+    }
+
+    @Override
+    public StreamingResponseBody streamAllRequests(Long userId, int from, int size, String after,
+                                                   boolean includeClosed) {
+        ItemRequestCursor cursor = after == null ? null : ItemRequestCursor.decode(after);
+        userExistenceValidator.validate(userId);
+        Set<ItemRequestStatus> statuses = statuses(includeClosed);
+        if (cursor == null) {
+            int offset = from > 0 ? from / size * size : 0;
+            return streamArray(action -> itemRequestJsonRepository.findByRequestorIdNot(userId, statuses, offset,
+                    size, action));
+        }
+        return streamArray(action -> itemRequestJsonRepository.findByRequestorIdNotBefore(userId, statuses,
+                cursor.getCreated(), cursor.getId(), size, action));
+    }
+
+    @Override
+    public StreamingResponseBody streamRequest(Long userId, Long requestId) {
+        userExistenceValidator.validate(userId);
+        ItemRequestRow row = itemRequestJsonRepository.findById(requestId)
+                .orElseThrow(() -> new EntityNotFoundException("Request not found"));
+        return out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                ItemRequestMapper.writeJson(row, generator);
+            }
+        };
+    }
+
+    private StreamingResponseBody streamArray(Consumer<Consumer<ItemRequestRow>> query) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                query.accept(row -> {
+                    try {
+                        ItemRequestMapper.writeJson(row, generator);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+    }
 }
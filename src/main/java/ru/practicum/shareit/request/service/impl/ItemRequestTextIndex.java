@@ -0,0 +1,84 @@
+package ru.practicum.shareit.request.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.ItemRequestText;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.utils.TextIndex;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over descriptions of open requests, used to search the requests an owner could fulfil.
+ * Loaded at startup, new requests are added after commit and closed ones removed by the closing job.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemRequestTextIndex {
+
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final TextIndex index = new TextIndex();
+    private final Map<Long, Long> requestors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        List<ItemRequestText> requests = itemRequestRepository.findTextByStatus(ItemRequestStatus.OPEN);
+        for (ItemRequestText request : requests) {
+            put(request.getId(), request.getRequestorId(), request.getDescription());
+        }
+        log.info("Request text index loaded with {} requests", requests.size());
+    }
+
+    @TransactionalEventListener
+    public void onRequestCreated(ItemRequestCreatedEvent event) {
+        put(event.getRequestId(), event.getRequestorId(), event.getDescription());
+    }
+
+    @TransactionalEventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        requestors.forEach((requestId, requestorId) -> {
+            if (requestorId.equals(event.getUserId())) {
+                remove(requestId);
+            }
+        });
+    }
+
+    public void remove(Collection<Long> requestIds) {
+        requestIds.forEach(this::remove);
+    }
+
+    /**
+     * Requests of other users matching the text, best first, up to {@code limit}.
+     */
+    public List<TextIndex.Hit> search(Long userId, String text, int limit) {
+        return index.search(text, limit, id -> {
+            Long requestorId = requestors.get(id);
+            return requestorId != null && !requestorId.equals(userId);
+        });
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private void put(Long requestId, Long requestorId, String description) {
+        requestors.put(requestId, requestorId);
+        index.put(requestId, description);
+    }
+
+    private void remove(Long requestId) {
+        index.remove(requestId);
+        requestors.remove(requestId);
+    }
+}
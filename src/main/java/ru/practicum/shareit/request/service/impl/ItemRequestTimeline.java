@@ -0,0 +1,292 @@
+package ru.practicum.shareit.request.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemDeletedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The newest open requests of the /requests/all feed with their items, kept in a ring buffer in feed order.
+ * The feed is the same for every user apart from their own requests, so one timeline is shared and
+ * those are skipped while reading. Requests and items are appended after commit. A page that runs past
+ * the oldest buffered request is answered from the database, unless the buffer holds the whole table.
+ */
+@Component
+@Slf4j
+public class ItemRequestTimeline {
+
+    private static final Sort FEED_SORT = Sort.by(Sort.Direction.DESC, "created", "id");
+    private static final Comparator<ItemRequestDto> FEED_ORDER = Comparator
+            .comparing(ItemRequestDto::getCreated)
+            .thenComparing(ItemRequestDto::getId);
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+
+    private final ItemRequestDto[] entries;
+    private final Map<Long, ItemRequestDto> byId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int start;
+    private int size;
+    private boolean complete;
+
+    public ItemRequestTimeline(ItemRequestRepository itemRequestRepository,
+                               ItemRepository itemRepository,
+                               @Value("${shareit.requests.timeline.capacity:1000}") int capacity) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.entries = new ItemRequestDto[capacity];
+    }
+
+    @PostConstruct
+    public void load() {
+        Page<ItemRequest> newest = itemRequestRepository.findByStatusAndRequestorDeletedAtIsNull(ItemRequestStatus.OPEN,
+                PageRequest.of(0, entries.length, FEED_SORT));
+        List<ItemDto> items = newest.isEmpty() ? new ArrayList<>() : itemRepository.findDtoByRequestIdIn(
+                newest.stream().map(ItemRequest::getId).collect(Collectors.toList()));
+        List<ItemRequestDto> requests = ItemRequestMapper.toDtoWithItems(newest.getContent(), items);
+        lock.writeLock().lock();
+        try {
+            for (int i = requests.size() - 1; i >= 0; i--) {
+                insert(requests.get(i));
+            }
+            complete = newest.getTotalElements() <= entries.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Request timeline loaded with {} requests", requests.size());
+    }
+
+    @TransactionalEventListener
+    public void onRequestCreated(ItemRequestCreatedEvent event) {
+        ItemRequestDto request = new ItemRequestDto(event.getRequestId(), event.getDescription(),
+                event.getRequestorId(), event.getCreated(), ItemRequestStatus.OPEN, new ArrayList<>());
+        lock.writeLock().lock();
+        try {
+            if (!byId.containsKey(request.getId())) {
+                insert(request);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onItemSaved(ItemSavedEvent event) {
+        if (event.getRequestId() == null) {
+            return;
+        }
+        ItemDto item = new ItemDto(event.getItemId(), event.getName(), event.getDescription(), event.getOwnerId(),
+                event.getAvailable(), event.getRequestId(), event.getLat(), event.getLon());
+        lock.writeLock().lock();
+        try {
+            ItemRequestDto request = byId.get(event.getRequestId());
+            if (request != null) {
+                request.getItems().removeIf(existing -> existing.getId().equals(item.getId()));
+                request.getItems().add(item);
+                request.getItems().sort(Comparator.comparing(ItemDto::getId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Requests and items of a deleted user are hidden right away and purged later, so both are dropped here.
+     */
+    @TransactionalEventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        Long userId = event.getUserId();
+        lock.writeLock().lock();
+        try {
+            removeLocked(request -> request.getRequestorId().equals(userId));
+            byId.values().forEach(request -> request.getItems().removeIf(item -> userId.equals(item.getOwnerId())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onItemDeleted(ItemDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            byId.values().forEach(request -> request.getItems()
+                    .removeIf(item -> item.getId().equals(event.getItemId())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops requests that were closed.
+     */
+    public void remove(Collection<Long> requestIds) {
+        Set<Long> ids = new HashSet<>(requestIds);
+        lock.writeLock().lock();
+        try {
+            removeLocked(request -> ids.contains(request.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The offset page of requests of other users, or empty if it reaches past the buffer.
+     */
+    public Optional<List<ItemRequestDto>> page(Long userId, int from, int pageSize) {
+        int skip = from > 0 ? from / pageSize * pageSize : 0;
+        lock.readLock().lock();
+        try {
+            return collect(size - 1, userId, skip, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The page of requests of other users after the cursor, or empty if it reaches past the buffer.
+     */
+    public Optional<List<ItemRequestDto>> pageAfter(Long userId, ItemRequestCursor cursor, int pageSize) {
+        ItemRequestDto key = new ItemRequestDto(cursor.getId(), null, null, cursor.getCreated(), null, null);
+        lock.readLock().lock();
+        try {
+            return collect(lowerIndex(key), userId, 0, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Optional<List<ItemRequestDto>> collect(int newest, Long userId, int skip, int limit) {
+        List<ItemRequestDto> page = new ArrayList<>(limit);
+        for (int i = newest; i >= 0 && page.size() < limit; i--) {
+            ItemRequestDto request = get(i);
+            if (request.getRequestorId().equals(userId)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                page.add(copy(request));
+            }
+        }
+        if (page.size() < limit && !complete) {
+            return Optional.empty();
+        }
+        return Optional.of(page);
+    }
+
+    /**
+     * Index of the newest buffered request that is older than the key, -1 if there is none.
+     */
+    private int lowerIndex(ItemRequestDto key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (FEED_ORDER.compare(get(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private void insert(ItemRequestDto request) {
+        if (size == entries.length) {
+            if (FEED_ORDER.compare(request, get(0)) < 0) {
+                complete = false;
+                return;
+            }
+            byId.remove(get(0).getId());
+            entries[start] = null;
+            start = (start + 1) % entries.length;
+            size--;
+            complete = false;
+        }
+        int position = size;
+        while (position > 0 && FEED_ORDER.compare(get(position - 1), request) > 0) {
+            set(position, get(position - 1));
+            position--;
+        }
+        set(position, request);
+        size++;
+        byId.put(request.getId(), request);
+    }
+
+    private void removeLocked(Predicate<ItemRequestDto> removed) {
+        List<ItemRequestDto> kept = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ItemRequestDto request = get(i);
+            if (!removed.test(request)) {
+                kept.add(request);
+            }
+        }
+        if (kept.size() == size) {
+            return;
+        }
+        clearLocked();
+        kept.forEach(this::insert);
+    }
+
+    private void clearLocked() {
+        for (int i = 0; i < size; i++) {
+            set(i, null);
+        }
+        byId.clear();
+        start = 0;
+        size = 0;
+    }
+
+    private ItemRequestDto get(int index) {
+        return entries[(start + index) % entries.length];
+    }
+
+    private void set(int index, ItemRequestDto request) {
+        entries[(start + index) % entries.length] = request;
+    }
+
+    private static ItemRequestDto copy(ItemRequestDto request) {
+        return new ItemRequestDto(request.getId(), request.getDescription(), request.getRequestorId(),
+                request.getCreated(), request.getStatus(), new ArrayList<>(request.getItems()));
+    }
+}
@@ -2,24 +2,38 @@ package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.utils.Marker;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 /**
  * TODO Sprint add-controllers.
  */
 
+@Validated
 @RestController
 @Slf4j
 @RequiredArgsConstructor
 @RequestMapping(path = "/users")
 public class UserController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final long MAX_PAGE_SIZE = 1000;
+
     private final UserService userService;
 
     @PostMapping
@@ -33,13 +47,43 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public UserDto user(@PathVariable Long userId) {
+    public UserDto user(@PathVariable Long userId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(userService.getUserEtag(userId))) {
+            return null;
+        }
         return userService.get(userId);
     }
 
+    /**
+     * Pages by id: {@code after} is the id of the last user of the previous page, also returned in
+     * the X-Next-Cursor header when the page is full. Use {@link #export} to read all users.
+     */
     @GetMapping
-    public List<UserDto> allUsers() {
-        return userService.getAll();
+    public ResponseEntity<List<UserDto>> allUsers(@PositiveOrZero @RequestParam(defaultValue = "0") long after,
+                                                  @Positive @Max(MAX_PAGE_SIZE)
+                                                  @RequestParam(defaultValue = "100") int size) {
+        List<UserDto> users = userService.getPage(after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.get(size - 1).getId()));
+        }
+        return response.body(users);
+    }
+
+    /**
+     * Users by a list of up to {@value MultiGetResponse#MAX_IDS} ids, in the requested order.
+     */
+    @GetMapping(params = "ids")
+    public MultiGetResponse<UserDto> usersByIds(@Size(max = MultiGetResponse.MAX_IDS) @RequestParam List<Long> ids) {
+        return userService.getByIds(ids);
+    }
+
+    /**
+     * All users as newline-delimited JSON, one user per line, for administrative exports.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok().contentType(NDJSON).body(userService.exportAll());
     }
 
     @DeleteMapping("/{userId}")
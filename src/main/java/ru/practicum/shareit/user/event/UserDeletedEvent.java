@@ -0,0 +1,17 @@
+package ru.practicum.shareit.user.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by the user service when a user is deleted together with the user's requests.
+ * Listeners should react after the transaction commits.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserDeletedEvent {
+
+    private final Long userId;
+}
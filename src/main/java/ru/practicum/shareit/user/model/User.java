@@ -4,8 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 
 /**
@@ -29,4 +31,14 @@ public class User {
     @Column(unique = true)
     private String email;
 
+    @UpdateTimestamp
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+
+    /**
+     * Set when the user is deleted; such users are hidden from user lookups and purged in the background.
+     */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
 }
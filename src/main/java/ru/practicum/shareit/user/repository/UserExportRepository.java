@@ -0,0 +1,42 @@
+package ru.practicum.shareit.user.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Reads all users in id order through a forward-only cursor. Rows are fetched from the database
+ * {@code shareit.users.export.fetch-size} at a time and handed to the caller as they arrive,
+ * so neither the driver nor the application holds the whole table. The read runs in a read-only
+ * transaction because PostgreSQL only honours the fetch size with auto-commit off.
+ */
+@Repository
+public class UserExportRepository {
+
+    private static final String SELECT_USERS = "SELECT id, name, email FROM users WHERE deleted_at IS NULL ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserExportRepository(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${shareit.users.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void findAll(Consumer<UserDto> action) {
+        RowCallbackHandler handler = rs -> action.accept(new UserDto(rs.getLong("id"), rs.getString("name"),
+                rs.getString("email")));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SELECT_USERS, handler));
+    }
+}
@@ -1,9 +1,35 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+
+/**
+ * Deleted users stay in the table until they are purged. Lookups on behalf of a request use the
+ * {@code DeletedAtIsNull} methods; the plain JPA methods still see deleted users, so the lazy references of
+ * their comments and bookings keep loading until the purge removes them.
+ */
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    Optional<User> findByIdAndDeletedAtIsNull(Long id);
+
+    boolean existsByIdAndDeletedAtIsNull(Long id);
+
+    List<User> findByIdGreaterThanAndDeletedAtIsNull(Long id, Pageable pageable);
+
+    List<User> findByIdInAndDeletedAtIsNull(Collection<Long> ids);
+
+    boolean existsByEmail(String email);
+
+    @Query("select u.lastModified from User u where u.id = :userId and u.deletedAt is null")
+    Optional<LocalDateTime> findLastModifiedById(@Param("userId") Long userId);
+
 }
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.repository.UserExportRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.BloomFilter;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells whether an email may already be registered without asking the database. Emails of all users
+ * are put into a Bloom filter at startup and on every sign-up or change of email, so a miss means
+ * the email is free and only a hit costs an indexed lookup. Emails of deleted or updated users stay
+ * in the filter as false positives until the periodic rebuild; the unique constraint stays the final guard.
+ */
+@Component
+@Slf4j
+public class UserEmailFilter {
+
+    private final UserRepository userRepository;
+    private final UserExportRepository userExportRepository;
+    private final long expectedUsers;
+    private final double falsePositiveProbability;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public UserEmailFilter(UserRepository userRepository,
+                           UserExportRepository userExportRepository,
+                           @Value("${shareit.users.email-filter.expected-users:1000000}") long expectedUsers,
+                           @Value("${shareit.users.email-filter.false-positive-probability:0.01}")
+                           double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.userExportRepository = userExportRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${shareit.users.email-filter.rebuild-ms:86400000}",
+            initialDelayString = "${shareit.users.email-filter.rebuild-ms:86400000}")
+    public synchronized void rebuild() {
+        BloomFilter next = new BloomFilter(Math.max(expectedUsers, 2 * userRepository.count()),
+                falsePositiveProbability);
+        rebuilding = next;
+        userExportRepository.findAll(user -> {
+            if (user.getEmail() != null) {
+                next.put(user.getEmail());
+            }
+        });
+        filter = next;
+        rebuilding = null;
+        log.info("Email filter rebuilt with {} emails", next.getInsertionCount());
+    }
+
+    /**
+     * Whether a user with this email may exist. False means it certainly does not.
+     */
+    public boolean mightExist(String email) {
+        if (filter.mightContain(email)) {
+            lookups.incrementAndGet();
+            return true;
+        }
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Puts the email right away, so a concurrent sign-up with it already looks it up, and again after
+     * commit in case a rebuild has read the users in between.
+     */
+    public void added(String email) {
+        put(email);
+        afterCommit(() -> put(email));
+    }
+
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    private void put(String email) {
+        filter.put(email);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Checks the X-Sharer-User-Id of a request without loading the user. Ids of live users confirmed in the
+ * database are remembered in a bitmap, one bit per id up to {@code shareit.users.existence.max-id},
+ * so a known user costs no query; larger ids are always checked in the database. Users are added
+ * and removed after commit. An id confirmed while a deletion was in flight is not remembered,
+ * so a deleted user never stays cached.
+ */
+@Component
+public class UserExistenceValidator {
+
+    private final UserRepository userRepository;
+    private final long maxCachedId;
+
+    private final BitSet live = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong deletions = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public UserExistenceValidator(UserRepository userRepository,
+                                  @Value("${shareit.users.existence.max-id:67108864}") long maxCachedId) {
+        this.userRepository = userRepository;
+        this.maxCachedId = Math.min(maxCachedId, Integer.MAX_VALUE);
+    }
+
+    public void validate(Long userId) {
+        if (!exists(userId)) {
+            throw new EntityNotFoundException("User not found");
+        }
+    }
+
+    public boolean exists(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (isCached(userId)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        long deletionsBefore = deletions.get();
+        if (!userRepository.existsByIdAndDeletedAtIsNull(userId)) {
+            return false;
+        }
+        remember(userId, deletionsBefore);
+        return true;
+    }
+
+    public void added(Long userId) {
+        afterCommit(() -> remember(userId, deletions.get()));
+    }
+
+    public void deleted(Long userId) {
+        afterCommit(() -> forget(userId));
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private boolean isCached(long userId) {
+        if (!cacheable(userId)) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return live.get((int) userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void remember(long userId, long deletionsBefore) {
+        if (!cacheable(userId)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (deletions.get() == deletionsBefore) {
+                live.set((int) userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void forget(long userId) {
+        lock.writeLock().lock();
+        try {
+            deletions.incrementAndGet();
+            if (cacheable(userId)) {
+                live.clear((int) userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean cacheable(long userId) {
+        return userId >= 0 && userId <= maxCachedId;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
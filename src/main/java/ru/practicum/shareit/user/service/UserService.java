@@ -1,7 +1,10 @@
 package ru.practicum.shareit.user.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface UserService {
@@ -13,7 +16,22 @@ public interface UserService {
 
     UserDto get(Long userId);
 
-    List<UserDto> getAll();
+    String getUserEtag(Long userId);
+
+    /**
+     * Users with ids greater than {@code after}, in id order.
+     */
+    List<UserDto> getPage(long after, int size);
+
+    /**
+     * Users with the given ids in the requested order, deleted and unknown ids are reported as missing.
+     */
+    MultiGetResponse<UserDto> getByIds(Collection<Long> ids);
+
+    /**
+     * All users as newline-delimited JSON, read from the database while the body is written.
+     */
+    StreamingResponseBody exportAll();
 
     void delete(Long userId);
 
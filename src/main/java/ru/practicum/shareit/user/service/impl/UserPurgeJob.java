@@ -0,0 +1,239 @@
+package ru.practicum.shareit.user.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.event.ItemDeletedEvent;
+import ru.practicum.shareit.utils.ChangeTracker;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Purges the data of soft-deleted users. Instead of one cascading delete, rows that depend on the user
+ * are removed in batches of at most {@code shareit.users.purge.batch-size} ids, each in its own short
+ * transaction, children before parents. After every batch the purger sleeps at least as long as the
+ * batch took, so it never holds the database for more than half of its time. The sleep only blocks
+ * the purge's own scheduler thread. Items of other users made for the user's requests are kept and only
+ * lose the reference to the request; items of other users that lose comments or bookings get their comment
+ * aggregates recomputed and a new version.
+ */
+@Component
+@Slf4j
+public class UserPurgeJob {
+
+    private static final String SELECT_DELETED_USERS =
+            "SELECT id FROM users WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id LIMIT :limit";
+    private static final String COUNT_DELETED_USERS = "SELECT COUNT(*) FROM users WHERE deleted_at IS NOT NULL";
+
+    /**
+     * Recomputes the comment aggregates of items that lost comments or bookings and bumps their version,
+     * so their ETags stop matching.
+     */
+    private static final String REFRESH_ITEMS = "UPDATE items SET "
+            + "comment_count = (SELECT COUNT(*) FROM comments c WHERE c.item_id = items.id), "
+            + "last_comment_id = (SELECT MAX(c.id) FROM comments c WHERE c.item_id = items.id), "
+            + "last_comment_at = (SELECT c.created FROM comments c "
+            + "WHERE c.id = (SELECT MAX(m.id) FROM comments m WHERE m.item_id = items.id)), "
+            + "last_modified = :now WHERE id IN (:itemIds)";
+
+    private static final List<Step> STEPS = List.of(
+            new Step("comments of the user",
+                    "SELECT id FROM comments WHERE author_id = :userId LIMIT :limit",
+                    "DELETE FROM comments WHERE id IN (:ids)",
+                    "SELECT DISTINCT item_id FROM comments WHERE id IN (:ids)", false),
+            new Step("failed comments of the user",
+                    "SELECT id FROM failed_comments WHERE author_id = :userId LIMIT :limit",
+                    "DELETE FROM failed_comments WHERE id IN (:ids)",
+                    null, false),
+            new Step("bookings of the user",
+                    "SELECT id FROM bookings WHERE booker = :userId LIMIT :limit",
+                    "DELETE FROM bookings WHERE id IN (:ids)",
+                    "SELECT DISTINCT item FROM bookings WHERE id IN (:ids)", false),
+            new Step("comments on items of the user",
+                    "SELECT c.id FROM comments c JOIN items i ON c.item_id = i.id WHERE i.owner = :userId LIMIT :limit",
+                    "DELETE FROM comments WHERE id IN (:ids)",
+                    null, false),
+            new Step("bookings of items of the user",
+                    "SELECT b.id FROM bookings b JOIN items i ON b.item = i.id WHERE i.owner = :userId LIMIT :limit",
+                    "DELETE FROM bookings WHERE id IN (:ids)",
+                    null, false),
+            new Step("items made for requests of the user",
+                    "SELECT i.id FROM items i JOIN requests r ON i.request = r.id WHERE r.requestor = :userId "
+                            + "LIMIT :limit",
+                    "UPDATE items SET request = NULL, last_modified = :now WHERE id IN (:ids)",
+                    null, false),
+            new Step("items of the user",
+                    "SELECT id FROM items WHERE owner = :userId LIMIT :limit",
+                    "DELETE FROM items WHERE id IN (:ids)",
+                    null, true),
+            new Step("requests of the user",
+                    "SELECT id FROM requests WHERE requestor = :userId LIMIT :limit",
+                    "DELETE FROM requests WHERE id IN (:ids)",
+                    null, false));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeTracker changeTracker;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+    private final int usersPerRun;
+
+    private final AtomicLong purgedUsers = new AtomicLong();
+    private final AtomicLong purgedRows = new AtomicLong();
+    private volatile long pendingUsers;
+    private volatile Long currentUserId;
+
+    public UserPurgeJob(NamedParameterJdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        ChangeTracker changeTracker,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${shareit.users.purge.batch-size:500}") int batchSize,
+                        @Value("${shareit.users.purge.users-per-run:10}") int usersPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeTracker = changeTracker;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.usersPerRun = usersPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.users.purge.interval-ms:10000}")
+    public void purge() {
+        List<Long> userIds = jdbcTemplate.queryForList(SELECT_DELETED_USERS,
+                new MapSqlParameterSource("limit", usersPerRun), Long.class);
+        pendingUsers = count();
+        for (Long userId : userIds) {
+            purge(userId);
+        }
+    }
+
+    /**
+     * Users marked as deleted whose data is not purged yet.
+     */
+    public long getPendingUsers() {
+        return pendingUsers;
+    }
+
+    public long getPurgedUsers() {
+        return purgedUsers.get();
+    }
+
+    public long getPurgedRows() {
+        return purgedRows.get();
+    }
+
+    /**
+     * The user being purged right now, null between runs.
+     */
+    public Long getCurrentUserId() {
+        return currentUserId;
+    }
+
+    private void purge(Long userId) {
+        currentUserId = userId;
+        long start = System.nanoTime();
+        long rows = 0;
+        try {
+            for (Step step : STEPS) {
+                long stepRows = purge(userId, step);
+                if (stepRows > 0) {
+                    log.debug("Purged {} rows: {} {}", stepRows, step.getName(), userId);
+                }
+                rows += stepRows;
+            }
+            rows += inTransaction(() -> jdbcTemplate.update("DELETE FROM users WHERE id = :userId",
+                    new MapSqlParameterSource("userId", userId)));
+        } finally {
+            currentUserId = null;
+        }
+        purgedUsers.incrementAndGet();
+        pendingUsers = Math.max(0, pendingUsers - 1);
+        log.info("User {} purged: {} rows in {} ms, {} deleted users left", userId, rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), pendingUsers);
+    }
+
+    private long purge(Long userId, Step step) {
+        long rows = 0;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.queryForList(step.getSelectIds(), new MapSqlParameterSource("userId", userId)
+                    .addValue("limit", batchSize), Long.class);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> batch = ids;
+            long batchStart = System.nanoTime();
+            rows += inTransaction(() -> change(step, batch));
+            pause(System.nanoTime() - batchStart);
+        } while (ids.size() == batchSize);
+        return rows;
+    }
+
+    /**
+     * Other users' items that lose rows are refreshed in the same transaction, and every change
+     * invalidates the list ETags once it commits.
+     */
+    private int change(Step step, List<Long> ids) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids)
+                .addValue("now", LocalDateTime.now());
+        List<Long> itemIds = step.getSelectItemIds() == null ? List.of()
+                : jdbcTemplate.queryForList(step.getSelectItemIds(), parameters, Long.class);
+        int rows = jdbcTemplate.update(step.getChange(), parameters);
+        if (!itemIds.isEmpty()) {
+            jdbcTemplate.update(REFRESH_ITEMS, parameters.addValue("itemIds", itemIds));
+        }
+        if (step.isDeletesItems()) {
+            ids.forEach(itemId -> eventPublisher.publishEvent(new ItemDeletedEvent(itemId)));
+        }
+        changeTracker.changedAll();
+        return rows;
+    }
+
+    private int inTransaction(IntSupplier change) {
+        Integer rows = transactionTemplate.execute(status -> change.getAsInt());
+        int changed = rows == null ? 0 : rows;
+        purgedRows.addAndGet(changed);
+        return changed;
+    }
+
+    private long count() {
+        Long count = jdbcTemplate.queryForObject(COUNT_DELETED_USERS, new MapSqlParameterSource(), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static void pause(long batchNanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(batchNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Step {
+        private final String name;
+        private final String selectIds;
+        private final String change;
+        /**
+         * Selects the other users' items whose aggregates the change affects, null if there are none.
+         */
+        private final String selectItemIds;
+        /**
+         * Whether the change deletes items, which are then announced to the in-memory indexes.
+         */
+        private final boolean deletesItems;
+    }
+}
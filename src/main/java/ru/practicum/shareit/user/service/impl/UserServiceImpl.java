@@ -1,16 +1,34 @@
 package ru.practicum.shareit.user.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.user.repository.UserExportRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserEmailFilter;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.ChangeTracker;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,11 +41,21 @@ import static ru.practicum.shareit.user.dto.UserMapper.*;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final ChangeTracker changeTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserExportRepository userExportRepository;
+    private final ObjectMapper objectMapper;
+    private final UserExistenceValidator userExistenceValidator;
+    private final UserEmailFilter userEmailFilter;
 
     @Transactional
     @Override
     public UserDto add(UserDto userDto) {
+        checkEmailFree(userDto.getEmail());
         UserDto response = toUserDto(userRepository.save(toUser(userDto)));
+        userEmailFilter.added(response.getEmail());
+        userExistenceValidator.added(response.getId());
         log.info("A new user has registered: {}", response);
         return response;
     }
@@ -35,39 +63,95 @@ public class UserServiceImpl implements UserService {
     @Transactional
     @Override
     public UserDto update(Long userId, UserDto userDto) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        if (userDto.getName() != null) {
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        if (userDto.getName() != null && !userDto.getName().equals(user.getName())) {
             user.setName(userDto.getName());
+            itemRepository.touchCommentedBy(userId, LocalDateTime.now());
         }
-        if (userDto.getEmail() != null) {
+        if (userDto.getEmail() != null && !userDto.getEmail().equals(user.getEmail())) {
+            checkEmailFree(userDto.getEmail());
             user.setEmail(userDto.getEmail());
+            userEmailFilter.added(userDto.getEmail());
         }
         log.info("User {} has updated his data.", userId);
-        return toUserDto(userRepository.save(user));
+        UserDto response = toUserDto(userRepository.save(user));
+        changeTracker.changedAll();
+        return response;
     }
 
     @Override
     public UserDto get(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
         log.info("User {} is being viewed", userId);
         return toUserDto(user);
     }
 
     @Override
-    public List<UserDto> getAll() {
-        List<User> allUsers = userRepository.findAll();
-        log.info("A list of all users has been received. Total users - {}", allUsers.size());
-        return allUsers.stream()
+    public String getUserEtag(Long userId) {
+        return userRepository.findLastModifiedById(userId)
+                .map(lastModified -> changeTracker.entityEtag("user", userId, false, lastModified))
+                .orElse(null);
+    }
+
+    @Override
+    public List<UserDto> getPage(long after, int size) {
+        List<User> users = userRepository.findByIdGreaterThanAndDeletedAtIsNull(after, PageRequest.of(0, size, Sort.by("id")));
+        log.info("A page of users after {} has been received. Users on page - {}", after, users.size());
+        return users.stream()
                 .map((UserMapper::toUserDto))
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public MultiGetResponse<UserDto> getByIds(Collection<Long> ids) {
+        Collection<Long> distinct = MultiGetResponse.distinct(ids);
+        if (distinct.isEmpty()) {
+            return MultiGetResponse.of(ids, List.of(), UserDto::getId);
+        }
+        List<UserDto> users = userRepository.findByIdInAndDeletedAtIsNull(distinct).stream()
+                .map(UserMapper::toUserDto)
+                .collect(Collectors.toList());
+        log.info("Users {} have been received. Users found - {}", ids, users.size());
+        return MultiGetResponse.of(ids, users, UserDto::getId);
+    }
+
+    @Override
+    public StreamingResponseBody exportAll() {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                userExportRepository.findAll(user -> {
+                    try {
+                        generator.writeObject(user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            log.info("All users have been exported");
+        };
+    }
+
     @Transactional
     @Override
     public void delete(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        userRepository.delete(user);
-        log.info("User {} has been deleted.", user);
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        user.setDeletedAt(LocalDateTime.now());
+        user.setEmail(null);
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
+        userExistenceValidator.deleted(userId);
+        changeTracker.changedAll();
+        log.info("User {} has been deleted, the data will be purged in the background.", userId);
     }
 
+    /**
+     * Most sign-ups use a new email, which the filter rules out without a query.
+     */
+    private void checkEmailFree(String email) {
+        if (email != null && userEmailFilter.mightExist(email) && userRepository.existsByEmail(email)) {
+            throw new DataIntegrityViolationException("Email " + email + " is already registered");
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Builds ETags for conditional GETs. Single entities are versioned by their last_modified columns;
+ * lists use per-user change counters. Counters are striped over a fixed array to keep memory bounded,
+ * so users sharing a stripe only get extra full responses, never a stale 304. The epoch keeps ETags
+ * issued before a restart or by another instance from matching. Counters are bumped after commit, so an
+ * old ETag is never paired with data that is not yet visible.
+ */
+@Component
+public class ChangeTracker {
+
+    private static final int STRIPES = 4096;
+
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES);
+    private final AtomicLong global = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final long timeBucketMillis;
+
+    public ChangeTracker(@Value("${shareit.etag.time-bucket-seconds:60}") long timeBucketSeconds) {
+        this.timeBucketMillis = Math.max(1, timeBucketSeconds) * 1000;
+    }
+
+    public void changed(Long userId) {
+        afterCommit(() -> counters.incrementAndGet(stripe(userId)));
+    }
+
+    /**
+     * For changes that may show up in the lists of any user, e.g. a renamed user.
+     */
+    public void changedAll() {
+        afterCommit(global::incrementAndGet);
+    }
+
+    /**
+     * @param timeDependent whether the response also changes as time passes (current/past/future splits),
+     *                      in which case the ETag expires at the end of the current time bucket
+     */
+    public String listEtag(Long userId, String scope, boolean timeDependent, Object... parameters) {
+        StringBuilder etag = new StringBuilder(scope)
+                .append('-').append(userId)
+                .append('-').append(epoch)
+                .append('.').append(global.get())
+                .append('.').append(counters.get(stripe(userId)));
+        for (Object parameter : parameters) {
+            etag.append('-').append(parameter);
+        }
+        return appendTimeBucket(etag, timeDependent);
+    }
+
+    public String entityEtag(String scope, Long userId, boolean timeDependent, LocalDateTime... versions) {
+        StringBuilder etag = new StringBuilder(scope).append('-').append(userId);
+        for (LocalDateTime version : versions) {
+            etag.append('-').append(version == null ? "0" : Long.toString(toMicros(version), 36));
+        }
+        return appendTimeBucket(etag, timeDependent);
+    }
+
+    private static void afterCommit(Runnable bump) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+
+    private String appendTimeBucket(StringBuilder etag, boolean timeDependent) {
+        if (timeDependent) {
+            etag.append("-t").append(System.currentTimeMillis() / timeBucketMillis);
+        }
+        return etag.toString();
+    }
+
+    private static long toMicros(LocalDateTime version) {
+        return version.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + version.getNano() / 1000;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) ((userId * 0x9E3779B97F4A7C15L) >>> 52) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.utils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    public static double cellHeight(int precision) {
+        return 180 / Math.pow(2, (5 * precision) / 2);
+    }
+
+    public static double cellWidth(int precision) {
+        return 360 / Math.pow(2, (5 * precision + 1) / 2);
+    }
+
+    /**
+     * Returns the cells of the given precision that cover the bounding box of a circle.
+     */
+    public static Set<String> coveringCells(double lat, double lon, double radiusKm, int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        double minLat = Math.max(-90, lat - latDelta(radiusKm));
+        double maxLat = Math.min(90, lat + latDelta(radiusKm));
+        double lonDelta = lonDelta(lat, radiusKm);
+        Set<String> cells = new LinkedHashSet<>();
+        for (double cellLat = minLat; cellLat < maxLat + height; cellLat += height) {
+            double pointLat = Math.min(cellLat, maxLat);
+            for (double cellLon = lon - lonDelta; cellLon < lon + lonDelta + width; cellLon += width) {
+                double pointLon = Math.min(cellLon, lon + lonDelta);
+                cells.add(encode(pointLat, normalizeLon(pointLon), precision));
+            }
+        }
+        return cells;
+    }
+
+    public static long countCoveringCells(double lat, double radiusKm, int precision) {
+        long rows = (long) Math.ceil(2 * latDelta(radiusKm) / cellHeight(precision)) + 1;
+        long columns = (long) Math.ceil(2 * lonDelta(lat, radiusKm) / cellWidth(precision)) + 1;
+        return rows * columns;
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static double latDelta(double radiusKm) {
+        return radiusKm / KM_PER_DEGREE;
+    }
+
+    private static double lonDelta(double lat, double radiusKm) {
+        double cos = Math.cos(Math.toRadians(lat));
+        if (cos < 1e-6) {
+            return 180;
+        }
+        return Math.min(180, radiusKm / (KM_PER_DEGREE * cos));
+    }
+
+    private static double normalizeLon(double lon) {
+        double normalized = ((lon + 180) % 360 + 360) % 360 - 180;
+        return normalized == 180 ? -180 : normalized;
+    }
+}
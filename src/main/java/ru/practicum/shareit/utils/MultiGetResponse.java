@@ -0,0 +1,52 @@
+package ru.practicum.shareit.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Answer of a lookup by a list of ids: the entities found in the requested order and the ids
+ * that were not found or are not visible to the caller. Repeated ids are answered once.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse<T> {
+
+    public static final int MAX_IDS = 100;
+
+    private List<T> found;
+    private List<Long> missing;
+
+    /**
+     * The requested ids without repeats and blanks, in the order they were given.
+     */
+    public static Set<Long> distinct(Collection<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        return distinct;
+    }
+
+    public static <T> MultiGetResponse<T> of(Collection<Long> ids, Collection<T> loaded, Function<T, Long> idOf) {
+        LongHashMap<T> byId = new LongHashMap<>(loaded.size());
+        loaded.forEach(entity -> byId.put(idOf.apply(entity), entity));
+        List<T> found = new ArrayList<>(loaded.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct(ids)) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResponse<>(found, missing);
+    }
+}
@@ -2,7 +2,9 @@ CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY UNIQUE,
     name  VARCHAR(100) NOT NULL,
-    email VARCHAR(320) UNIQUE
+    email VARCHAR(320) UNIQUE,
+    last_modified TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP,
+    deleted_at    TIMESTAMP WITHOUT TIME ZONE
 );
 
 CREATE TABLE IF NOT EXISTS requests
@@ -11,6 +13,7 @@ CREATE TABLE IF NOT EXISTS requests
     description VARCHAR(1000),
     requestor   BIGINT                      NOT NULL,
     create_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    status      VARCHAR(20)                 NOT NULL DEFAULT 'OPEN',
     FOREIGN KEY (requestor) REFERENCES users (id) ON DELETE CASCADE
 );
 
@@ -22,6 +25,14 @@ CREATE TABLE IF NOT EXISTS items
     available   BOOLEAN      NOT NULL,
     owner       BIGINT       NOT NULL,
     request     BIGINT,
+    popularity  DOUBLE PRECISION NOT NULL DEFAULT 0,
+    popularity_next DOUBLE PRECISION NOT NULL DEFAULT 0,
+    lat         DOUBLE PRECISION,
+    lon         DOUBLE PRECISION,
+    last_modified TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP,
+    comment_count   INTEGER NOT NULL DEFAULT 0,
+    last_comment_id BIGINT,
+    last_comment_at TIMESTAMP WITHOUT TIME ZONE,
     FOREIGN KEY (owner) REFERENCES users (id) ON DELETE CASCADE,
     FOREIGN KEY (request) REFERENCES requests (id) ON DELETE CASCADE
 );
@@ -35,6 +46,7 @@ CREATE TABLE IF NOT EXISTS bookings
     item          BIGINT                      NOT NULL,
     booker        BIGINT                      NOT NULL,
     status        VARCHAR(100),
+    last_modified TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP,
     FOREIGN KEY (item) REFERENCES items (id) ON DELETE CASCADE,
     FOREIGN KEY (booker) REFERENCES users (id)
 );
@@ -50,3 +62,66 @@ CREATE TABLE IF NOT EXISTS comments
     FOREIGN KEY (item_id) REFERENCES items (id)
 );
 
+CREATE TABLE IF NOT EXISTS failed_comments
+(
+    id        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY UNIQUE,
+    text      VARCHAR                     NOT NULL,
+    author_id BIGINT                      NOT NULL,
+    item_id   BIGINT                      NOT NULL,
+    created   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    failed_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    error     VARCHAR(1000)
+);
+
+CREATE TABLE IF NOT EXISTS item_photos
+(
+    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY UNIQUE,
+    item_id      BIGINT                      NOT NULL,
+    hash         VARCHAR(64)                 NOT NULL,
+    content_type VARCHAR(100)                NOT NULL,
+    size         BIGINT                      NOT NULL,
+    created      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS request_matches
+(
+    request_id BIGINT           NOT NULL,
+    item_id    BIGINT           NOT NULL,
+    score      DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (request_id, item_id),
+    FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE CASCADE,
+    FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS job_watermarks
+(
+    name      VARCHAR(50)                 NOT NULL PRIMARY KEY,
+    watermark TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS requests_create_date_idx ON requests (create_date, id);
+
+CREATE INDEX IF NOT EXISTS requests_status_create_date_idx ON requests (status, create_date, id);
+
+CREATE INDEX IF NOT EXISTS items_popularity_idx ON items (popularity DESC, id);
+
+CREATE INDEX IF NOT EXISTS item_photos_item_idx ON item_photos (item_id);
+
+CREATE INDEX IF NOT EXISTS comments_item_idx ON comments (item_id, id);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_item_end_idx ON bookings (booker, item, end_booking, status);
+
+CREATE INDEX IF NOT EXISTS users_deleted_at_idx ON users (deleted_at);
+
+CREATE INDEX IF NOT EXISTS requests_requestor_idx ON requests (requestor);
+
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner);
+
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request);
+
+CREATE INDEX IF NOT EXISTS bookings_item_idx ON bookings (item);
+
+CREATE INDEX IF NOT EXISTS comments_author_idx ON comments (author_id);
+
+CREATE INDEX IF NOT EXISTS failed_comments_author_idx ON failed_comments (author_id);
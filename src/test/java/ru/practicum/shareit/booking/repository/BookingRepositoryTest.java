@@ -1,5 +1,7 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,7 +9,8 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.impl.EntitiesForBookingTests;
@@ -16,7 +19,7 @@ import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -421,33 +424,59 @@ class BookingRepositoryTest extends EntitiesForBookingTests {
     }
 
     @Test
-    void shouldFindTopByStatusNotLikeAndBookerIdAndItemId() {
-        Optional<Booking> maybeFindEntity = bookingRepository
-                .findTopByStatusNotLikeAndBookerIdAndItemId(BookingStatus.REJECTED, users.get(1).getId(),
-                        items.get(0).getId(), Sort.by(Sort.Direction.ASC, "end"));
-        Booking testBooking = bookings.get(0);
-        Item testBookingItem = testBooking.getItem();
-        User testBookingBooker = testBooking.getBooker();
+    void shouldFindCompletedRentalWhenUseExistsByBookerIdAndItemIdAndStatusNotAndEndBefore() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(users.get(1).getId(),
+                items.get(0).getId(), BookingStatus.REJECTED, now), is(true));
+        assertThat(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(users.get(1).getId(),
+                items.get(1).getId(), BookingStatus.REJECTED, now), is(false));
+        assertThat(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(users.get(0).getId(),
+                items.get(0).getId(), BookingStatus.REJECTED, now), is(false));
+    }
 
-        if (maybeFindEntity.isPresent()) {
-            Booking findEntity = maybeFindEntity.get();
-            assertThat(findEntity, allOf(
-                    hasProperty("id", notNullValue()),
-                    hasProperty("start", equalTo(testBooking.getStart())),
-                    hasProperty("end", equalTo(testBooking.getEnd())),
-                    hasProperty("item", allOf(
-                            hasProperty("id", notNullValue()),
-                            hasProperty("name", equalTo(testBookingItem.getName())),
-                            hasProperty("description", equalTo(testBookingItem.getDescription())),
-                            hasProperty("available", equalTo(testBookingItem.getAvailable()))
-                    )),
-                    hasProperty("booker", allOf(
-                            hasProperty("id", notNullValue()),
-                            hasProperty("name", equalTo(testBookingBooker.getName())),
-                            hasProperty("email", equalTo(testBookingBooker.getEmail()))
-                    )),
-                    hasProperty("status", equalTo(testBooking.getStatus()))
-            ));
+    @Test
+    void shouldIgnoreRejectedBookingsWhenUseExistsByBookerIdAndItemIdAndStatusNot() {
+        assertThat(bookingRepository.existsByBookerIdAndItemIdAndStatusNot(users.get(1).getId(),
+                items.get(0).getId(), BookingStatus.REJECTED), is(true));
+        assertThat(bookingRepository.existsByBookerIdAndItemIdAndStatusNot(users.get(1).getId(),
+                items.get(1).getId(), BookingStatus.REJECTED), is(false));
+    }
+
+    @Test
+    void shouldFindOnlyVisibleBookingsWhenUseFindVisibleByIdIn() {
+        User stranger = em.persist(User.builder().name("stranger").email("stranger@mail.ru").build());
+        List<Long> ids = List.of(bookings.get(0).getId(), bookings.get(2).getId(), -1L);
+
+        assertThat(bookingRepository.findVisibleByIdIn(ids, users.get(1).getId()), hasSize(2));
+        assertThat(bookingRepository.findVisibleByIdIn(ids, users.get(0).getId()), containsInAnyOrder(
+                hasProperty("id", equalTo(bookings.get(0).getId())),
+                hasProperty("id", equalTo(bookings.get(2).getId()))));
+        assertThat(bookingRepository.findVisibleByIdIn(ids, stranger.getId()), empty());
+    }
+
+    @Test
+    void shouldLoadItemsAndBookersOfBookingsInOneQueryEachWhenMapping() {
+        User owner = users.get(0);
+        for (int i = 0; i < 5; i++) {
+            User booker = em.persist(User.builder().name("booker" + i).email("booker" + i + "@mail.ru").build());
+            Item item = em.persist(items.get(1).toBuilder().id(null).owner(owner).build());
+            em.persist(bookings.get(0).toBuilder().id(null).booker(booker).item(item).build());
         }
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<BookingDtoOutput> mapped = bookingRepository.findByItemOwnerId(owner.getId(), PageRequest.of(0, 20))
+                .stream()
+                .map(BookingMapper::toBookingDtoOutput)
+                .collect(Collectors.toList());
+
+        assertThat(mapped, hasSize(8));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(3L));
+        statistics.setStatisticsEnabled(false);
     }
-}
\ No newline at end of file
+}
@@ -7,10 +7,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.user.dto.UserMapper;
 
@@ -22,6 +24,7 @@ import java.util.List;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 @Transactional
@@ -306,6 +309,20 @@ class BookingServiceImplIntegrationTest extends EntitiesForBookingTests {
         ));
     }
 
+    @Test
+    void shouldNotBookItemOfDeletedOwner() {
+        users.get(0).setDeletedAt(LocalDateTime.now());
+        em.flush();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(EntityNotFoundException.class, () -> bookingService.add(users.get(1).getId(),
+                BookingDto.builder()
+                        .itemId(items.get(1).getId())
+                        .start(start)
+                        .end(start.plusDays(1))
+                        .build()));
+    }
+
     private List<BookingDtoOutput> getAllUserBookings(BookingStatus status) {
         return bookingService.getAllUserBookings(users.get(1).getId(), status.name(), 0, 5);
     }
@@ -21,6 +21,8 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.utils.ChangeTracker;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -44,6 +46,9 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ChangeTracker changeTracker;
+
     private BookingService bookingService;
 
     private final Item item1 = items.get(0);
@@ -53,14 +58,15 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     @BeforeEach
     public void beforeEach() {
         bookingService = new BookingServiceImpl(itemRepository, userRepository,
-                bookingRepository);
+                new UserExistenceValidator(userRepository, 1000),
+                bookingRepository, changeTracker, new CompletedRentalCache(100));
     }
 
     @Test
     void add() {
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
-        when(itemRepository.findById(item1.getId()))
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
         when(bookingRepository.save(Mockito.any(Booking.class)))
                 .thenReturn(booking1);
@@ -96,9 +102,9 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
 
     @Test
     void shouldThrowEntityNotFoundExceptionWhenBookerIsAnOwner() {
-        when(userRepository.findById(user2.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user2.getId()))
                 .thenReturn(Optional.of(user2));
-        when(itemRepository.findById(item1.getId()))
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
 
         assertThrows(EntityNotFoundException.class,
@@ -114,9 +120,9 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
         Item bookedItem = item1.toBuilder()
                 .available(false)
                 .build();
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
-        when(itemRepository.findById(bookedItem.getId()))
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(bookedItem.getId()))
                 .thenReturn(Optional.of(bookedItem));
 
         assertThrows(BadRequestException.class,
@@ -245,8 +251,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllUserBookingsWithStatusAll() {
         List<Booking> testBookings = List.of(booking1, booking2);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByBookerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(testBookings);
 
@@ -268,8 +274,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllUserBookingsWithStatusWaiting() {
         List<Booking> testBookings = List.of(booking1);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByBookerIdAndStatus(Mockito.anyLong(),
                 Mockito.any(BookingStatus.class),
                 Mockito.any(Pageable.class)))
@@ -291,8 +297,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     @Test
     void shouldExceptionWhenUseGetAllUserBookingsUserNotFound() {
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.empty());
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
 
         assertThrows(EntityNotFoundException.class,
                 () -> bookingService.getAllUserBookings(user1.getId(), "WAITING", 0, 5));
@@ -302,8 +308,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllUserBookingsWithStatusRejected() {
         List<Booking> testBookings = List.of(booking1.toBuilder().status(REJECTED).build());
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByBookerIdAndStatus(Mockito.anyLong(),
                 Mockito.any(BookingStatus.class),
                 Mockito.any(Pageable.class)))
@@ -329,8 +335,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
                 .start(LocalDateTime.now().minusDays(1))
                 .end(LocalDateTime.now().plusDays(1)).build());
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByBookerIdAndEndIsAfterAndStartIsBefore(Mockito.anyLong(),
                 Mockito.any(LocalDateTime.class),
                 Mockito.any(LocalDateTime.class),
@@ -355,8 +361,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllUserBookingsWithStatusPast() {
         List<Booking> testBookings = List.of(booking2);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByBookerIdAndEndIsBefore(Mockito.anyLong(),
                 Mockito.any(LocalDateTime.class),
                 Mockito.any(Pageable.class)))
@@ -380,8 +386,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllUserBookingsWithStatusFuture() {
         List<Booking> testBookings = List.of(booking1);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByBookerIdAndStartIsAfter(Mockito.anyLong(),
                 Mockito.any(LocalDateTime.class),
                 Mockito.any(Pageable.class)))
@@ -412,8 +418,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllOwnerBookings() {
         List<Booking> testBookings = List.of(booking1, booking2);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(testBookings);
 
@@ -436,8 +442,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllOwnerBookingsWithStatusWaiting() {
         List<Booking> testBookings = List.of(booking1);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByItemOwnerIdAndStatus(Mockito.anyLong(),
                 Mockito.any(BookingStatus.class),
                 Mockito.any(Pageable.class)))
@@ -459,8 +465,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     @Test
     void shouldExceptionWhenUseGetAllOwnerBookingsUserNotFound() {
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.empty());
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
 
         assertThrows(EntityNotFoundException.class,
                 () -> bookingService.getAllOwnerBookings(user1.getId(), "WAITING", 0, 5));
@@ -470,8 +476,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllOwnerBookingsWithStatusRejected() {
         List<Booking> testBookings = List.of(booking1.toBuilder().status(REJECTED).build());
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByItemOwnerIdAndStatus(Mockito.anyLong(),
                 Mockito.any(BookingStatus.class),
                 Mockito.any(Pageable.class)))
@@ -497,8 +503,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
                 .start(LocalDateTime.now().minusDays(1))
                 .end(LocalDateTime.now().plusDays(1)).build());
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByItemOwnerIdAndEndIsAfterAndStartIsBefore(Mockito.anyLong(),
                 Mockito.any(LocalDateTime.class),
                 Mockito.any(LocalDateTime.class),
@@ -523,8 +529,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllOwnerBookingsWithStatusPast() {
         List<Booking> testBookings = List.of(booking2);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByItemOwnerIdAndEndIsBefore(Mockito.anyLong(),
                 Mockito.any(LocalDateTime.class),
                 Mockito.any(Pageable.class)))
@@ -548,8 +554,8 @@ class BookingServiceImplTest extends EntitiesForBookingTests {
     void getAllOwnerBookingsWithStatusFuture() {
         List<Booking> testBookings = List.of(booking1);
 
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(bookingRepository.findByItemOwnerIdAndStartIsAfter(Mockito.anyLong(),
                 Mockito.any(LocalDateTime.class),
                 Mockito.any(Pageable.class)))
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.config.StatementAssertions.assertStatements;
+
+/**
+ * Pins the number of SQL statements of every endpoint, so that an N+1 query fails the build. The owner
+ * has several items and bookings, so a per-row query shows up as a changed count. Streamed bodies are
+ * written after the handler returns and are not covered.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class EndpointStatementCountTest {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    private long owner;
+    private long booker;
+    private long request;
+    private long item;
+    private long otherItem;
+    private long booking;
+    private long otherBooking;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        owner = createUser();
+        booker = createUser();
+        request = id(perform(post("/requests").header(USER_ID_HEADER, booker), Map.of("description", "a drill")));
+        item = createItem(request);
+        otherItem = createItem(null);
+        createItem(null);
+        booking = createBooking(item);
+        otherBooking = createBooking(otherItem);
+        createBooking(otherItem);
+        LocalDateTime past = LocalDateTime.now().minusDays(2);
+        jdbcTemplate.update("INSERT INTO bookings (start_booking, end_booking, item, booker, status) "
+                        + "VALUES (?, ?, ?, ?, 'APPROVED')",
+                Timestamp.valueOf(past), Timestamp.valueOf(past.plusDays(1)), item, booker);
+    }
+
+    @Test
+    void userEndpoints() throws Exception {
+        assertStatements(1, () -> createUser());
+        assertStatements(3, () -> perform(patch("/users/{userId}", owner), Map.of("name", "renamed")));
+        assertStatements(2, () -> perform(get("/users/{userId}", owner)));
+        assertStatements(1, () -> perform(get("/users")));
+        assertStatements(1, () -> perform(get("/users").param("ids", owner + "," + booker)));
+        assertStatements(5, () -> perform(delete("/users/{userId}", createUser())));
+    }
+
+    @Test
+    void itemEndpoints() throws Exception {
+        assertStatements(2, () -> createItem(null));
+        assertStatements(3, () -> perform(patch("/items/{itemId}", item).header(USER_ID_HEADER, owner),
+                Map.of("name", "hammer drill")));
+        assertStatements(4, () -> perform(get("/items").header(USER_ID_HEADER, owner)));
+        assertStatements(3, () -> perform(get("/items").header(USER_ID_HEADER, owner)
+                .param("commentStats", "true")));
+        assertStatements(4, () -> perform(get("/items").header(USER_ID_HEADER, owner)
+                .param("ids", item + "," + otherItem)));
+        assertStatements(5, () -> perform(get("/items/{itemId}", item).header(USER_ID_HEADER, owner)));
+        assertStatements(4, () -> perform(get("/items/{itemId}", item).header(USER_ID_HEADER, booker)));
+        assertStatements(1, () -> perform(get("/items/search").param("text", "drill")));
+        assertStatements(0, () -> perform(get("/items/search").param("lat", "55.7").param("lon", "37.6")));
+        assertStatements(5, () -> perform(post("/items/{itemId}/comment", item).header(USER_ID_HEADER, booker),
+                Map.of("text", "works well")));
+        assertStatements(2, () -> perform(get("/items/{itemId}/photos", item)));
+    }
+
+    @Test
+    void bookingEndpoints() throws Exception {
+        assertStatements(6, () -> createBooking(item));
+        assertStatements(4, () -> perform(patch("/bookings/{bookingId}", booking).header(USER_ID_HEADER, owner)
+                .param("approved", "true")));
+        assertStatements(3, () -> perform(get("/bookings/{bookingId}", booking).header(USER_ID_HEADER, booker)));
+        assertStatements(1, () -> perform(get("/bookings").header(USER_ID_HEADER, booker)
+                .param("ids", booking + "," + otherBooking)));
+        assertStatements(3, () -> perform(get("/bookings").header(USER_ID_HEADER, booker)));
+        assertStatements(3, () -> perform(get("/bookings/owner").header(USER_ID_HEADER, owner)));
+    }
+
+    @Test
+    void requestEndpoints() throws Exception {
+        assertStatements(2, () -> perform(post("/requests").header(USER_ID_HEADER, owner),
+                Map.of("description", "a ladder")));
+        assertStatements(2, () -> perform(get("/requests").header(USER_ID_HEADER, booker)));
+        assertStatements(0, () -> perform(get("/requests/all").header(USER_ID_HEADER, owner)));
+        assertStatements(2, () -> perform(get("/requests/search").header(USER_ID_HEADER, owner)
+                .param("text", "drill")));
+        assertStatements(2, () -> perform(get("/requests/{requestId}", request).header(USER_ID_HEADER, owner)));
+        assertStatements(2, () -> perform(get("/requests/{requestId}/matches", request)
+                .header(USER_ID_HEADER, booker)));
+    }
+
+    private long createUser() throws Exception {
+        return id(perform(post("/users"), Map.of("name", "user", "email", UUID.randomUUID() + "@mail.ru")));
+    }
+
+    private long createItem(Long requestId) throws Exception {
+        Map<String, Object> item = requestId == null
+                ? Map.of("name", "drill", "description", "a cordless drill", "available", true)
+                : Map.of("name", "drill", "description", "a cordless drill", "available", true,
+                "requestId", requestId);
+        return id(perform(post("/items").header(USER_ID_HEADER, owner), item));
+    }
+
+    private long createBooking(long itemId) throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        return id(perform(post("/bookings").header(USER_ID_HEADER, booker), Map.of("itemId", itemId,
+                "start", start.toString(), "end", start.plusDays(1).toString())));
+    }
+
+    private String perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    private String perform(MockHttpServletRequestBuilder request, Map<String, ?> body) throws Exception {
+        return perform(request.contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(body)));
+    }
+
+    private static long id(String json) {
+        return ((Number) JsonPath.read(json, "$.id")).longValue();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.service.impl.CommentWriter;
+import ru.practicum.shareit.request.service.impl.ItemRequestFeedHub;
+import ru.practicum.shareit.request.service.impl.ItemRequestMatcher;
+import ru.practicum.shareit.request.service.impl.ItemRequestTextIndex;
+import ru.practicum.shareit.request.service.impl.ItemRequestTimeline;
+import ru.practicum.shareit.user.service.UserEmailFilter;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.user.service.impl.UserPurgeJob;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+
+class ShareItMetricsTest {
+
+    private final CommentWriter commentWriter = Mockito.mock(CommentWriter.class);
+    private final ItemRequestMatcher itemRequestMatcher = Mockito.mock(ItemRequestMatcher.class);
+    private final UserPurgeJob userPurgeJob = Mockito.mock(UserPurgeJob.class);
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        new ShareItMetrics(commentWriter, itemRequestMatcher, Mockito.mock(ItemRequestFeedHub.class),
+                Mockito.mock(ItemRequestTimeline.class), Mockito.mock(ItemRequestTextIndex.class),
+                Mockito.mock(UserExistenceValidator.class), Mockito.mock(UserEmailFilter.class), userPurgeJob,
+                registry)
+                .bind();
+    }
+
+    @Test
+    void shouldReadGaugesWhenScraped() {
+        when(commentWriter.getQueueDepth())
+                .thenReturn(3, 7);
+
+        assertThat(registry.get("shareit.comments.queue.depth").gauge().value(), equalTo(3.0));
+        assertThat(registry.get("shareit.comments.queue.depth").gauge().value(), equalTo(7.0));
+    }
+
+    @Test
+    void shouldExposeCountsAsCounters() {
+        when(itemRequestMatcher.getDroppedCount())
+                .thenReturn(5L);
+        when(userPurgeJob.getPurgedRows())
+                .thenReturn(18L);
+
+        assertThat(registry.get("shareit.requests.matching.dropped").functionCounter().count(), equalTo(5.0));
+        assertThat(registry.get("shareit.users.purge.rows").functionCounter().count(), equalTo(18.0));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Asserts how many SQL statements a piece of work runs on the calling thread. MockMvc handles requests
+ * on the test thread, so this counts the statements of a whole request.
+ */
+public final class StatementAssertions {
+
+    private StatementAssertions() {
+    }
+
+    public static void assertStatements(long expected, Action action) throws Exception {
+        long before = StatementCounter.current();
+        action.run();
+        assertThat("SQL statements", StatementCounter.current() - before, equalTo(expected));
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+}
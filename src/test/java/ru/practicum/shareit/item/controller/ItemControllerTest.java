@@ -23,6 +23,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static ru.practicum.shareit.booking.enums.BookingStatus.APPROVED;
@@ -181,7 +182,7 @@ class ItemControllerTest {
 
     @Test
     void shouldGetItemWhenUseGetItemsWithParameterItemId() throws Exception {
-        when(itemService.getItem(Mockito.anyLong(), Mockito.anyLong()))
+        when(itemService.getItem(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean()))
                 .thenReturn(itemDtoByOwner);
 
         this.mockMvc.perform(get("/items/{itemId}", 1)
@@ -210,7 +211,7 @@ class ItemControllerTest {
 
     @Test
     void shouldGetAllItemsForUserWhenUseGetItems() throws Exception {
-        when(itemService.getUserItems(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt()))
+        when(itemService.getUserItems(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyBoolean()))
                 .thenReturn(List.of(itemDtoByOwner));
 
         this.mockMvc.perform(get("/items", 1)
@@ -240,9 +241,37 @@ class ItemControllerTest {
     }
 
 
+    @Test
+    void shouldReturnNotModifiedWhenUseGetItemWithMatchingEtag() throws Exception {
+        when(itemService.getItemEtag(1L, 1L, false))
+                .thenReturn("item-1-1-abc");
+
+        this.mockMvc.perform(get("/items/{itemId}", 1)
+                        .header(USER_ID_HEADER, 1L)
+                        .header("If-None-Match", "\"item-1-1-abc\"")
+                        .accept("*/*"))
+                .andExpect(status().isNotModified());
+        Mockito.verify(itemService, Mockito.never()).getItem(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean());
+    }
+
+    @Test
+    void shouldReturnEtagWhenUseGetItems() throws Exception {
+        when(itemService.getUserItemsEtag(1L, 0, 10, false))
+                .thenReturn("items-1-abc");
+        when(itemService.getUserItems(1L, 0, 10, false))
+                .thenReturn(List.of(itemDtoByOwner));
+
+        this.mockMvc.perform(get("/items")
+                        .header(USER_ID_HEADER, 1L)
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"items-1-abc\""))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
     @Test
     void shouldGetItemsWhenUseSearch() throws Exception {
-        when(itemService.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+        when(itemService.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyBoolean()))
                 .thenReturn(List.of(item1Output));
 
         this.mockMvc.perform(get("/items/search")
@@ -256,6 +285,30 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].ownerId").value(item1Output.getOwnerId()));
     }
 
+    @Test
+    void shouldSearchNearbyItemsWhenUseGetSearchWithCoordinates() throws Exception {
+        when(itemService.searchNearby("дрель", 55.75, 37.61, 3, 0, 10, false))
+                .thenReturn(List.of(item1Output));
+
+        this.mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("lat", "55.75")
+                        .param("lon", "37.61")
+                        .param("radius", "3")
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value(item1Output.getName()));
+    }
+
+    @Test
+    void shouldBadRequestWhenUseGetSearchWithOnlyLatitude() throws Exception {
+        this.mockMvc.perform(get("/items/search")
+                        .param("lat", "55.75")
+                        .accept("*/*"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldAddComment() throws Exception {
         when(itemService.addComment(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(CommentDto.class)))
@@ -275,6 +328,27 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.created").value(commentDto.getCreated().toString()));
     }
 
+    @Test
+    void shouldAcceptCommentWhenItIsQueued() throws Exception {
+        CommentDto queued = CommentDto.builder()
+                .created(commentDto.getCreated())
+                .text(commentDto.getText())
+                .authorName(commentDto.getAuthorName())
+                .build();
+        when(itemService.addComment(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(CommentDto.class)))
+                .thenReturn(queued);
+
+        this.mockMvc.perform(post("/items/{itemId}/comment", 1)
+                        .content(asJsonString(commentDto))
+                        .header(USER_ID_HEADER, 1L)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.text").value(queued.getText()));
+    }
+
     public String asJsonString(final Object obj) {
         try {
             return objectMapper.writeValueAsString(obj);
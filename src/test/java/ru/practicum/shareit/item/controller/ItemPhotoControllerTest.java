@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.controller;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemPhotoContent;
+import ru.practicum.shareit.item.dto.ItemPhotoDto;
+import ru.practicum.shareit.item.service.ItemPhotoService;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ItemPhotoController.class)
+class ItemPhotoControllerTest {
+
+    @MockBean
+    private ItemPhotoService itemPhotoService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    private final byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private final ItemPhotoDto photoDto = ItemPhotoDto.builder()
+            .id(1L)
+            .itemId(1L)
+            .contentType("image/png")
+            .size((long) content.length)
+            .hash(HASH)
+            .created(LocalDateTime.now().withNano(0))
+            .build();
+
+    @Test
+    void shouldUploadPhotoWhenUsePostPhotos() throws Exception {
+        when(itemPhotoService.addPhoto(Mockito.eq(1L), Mockito.eq(1L), Mockito.anyString(),
+                Mockito.any(InputStream.class)))
+                .thenReturn(photoDto);
+
+        this.mockMvc.perform(post("/items/1/photos")
+                        .header(USER_ID_HEADER, 1L)
+                        .contentType("image/png")
+                        .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.hash").value(HASH))
+                .andExpect(jsonPath("$.size").value(content.length));
+    }
+
+    @Test
+    void shouldUnsupportedMediaTypeWhenUploadNotImage() throws Exception {
+        this.mockMvc.perform(post("/items/1/photos")
+                        .header(USER_ID_HEADER, 1L)
+                        .contentType("text/plain")
+                        .content(content))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void shouldDownloadPhotoWithStrongEtag() throws Exception {
+        when(itemPhotoService.getPhoto(1L, 1L))
+                .thenReturn(new ItemPhotoContent(new ByteArrayResource(content), "image/png", HASH));
+
+        this.mockMvc.perform(get("/items/1/photos/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void shouldNotModifiedWhenEtagMatches() throws Exception {
+        when(itemPhotoService.getPhoto(1L, 1L))
+                .thenReturn(new ItemPhotoContent(new ByteArrayResource(content), "image/png", HASH));
+
+        this.mockMvc.perform(get("/items/1/photos/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void shouldReturnPartialContentWhenUseRangeHeader() throws Exception {
+        when(itemPhotoService.getPhoto(1L, 1L))
+                .thenReturn(new ItemPhotoContent(new ByteArrayResource(content), "image/png", HASH));
+
+        this.mockMvc.perform(get("/items/1/photos/1")
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.impl.EntitiesForItemTests;
 
@@ -116,6 +118,21 @@ class ItemRepositoryTest extends EntitiesForItemTests {
         ));
     }
 
+    @Test
+    void shouldFindItemDtosWithRequestIdWhenUseFindDtoByRequestIdIn() {
+        Item testItem = items.get(0);
+        List<ItemDto> findDtos = itemRepository.findDtoByRequestIdIn(List.of(itemRequest.getId()));
+
+        assertThat(findDtos, hasSize(1));
+        assertThat(findDtos.get(0), allOf(
+                hasProperty("id", equalTo(testItem.getId())),
+                hasProperty("name", equalTo(testItem.getName())),
+                hasProperty("ownerId", equalTo(testItem.getOwner().getId())),
+                hasProperty("available", equalTo(testItem.getAvailable())),
+                hasProperty("requestId", equalTo(itemRequest.getId()))
+        ));
+    }
+
     @Test
     void shouldFindEntitiesByRequestIdWhenUseFindByRequestId() {
         Item testItem = items.get(0);
@@ -134,17 +151,45 @@ class ItemRepositoryTest extends EntitiesForItemTests {
     void shouldFindSearchEntitiesIdWhenUseFindAllByDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase() {
         PageRequest pageRequest = PageRequest.of(0, 10);
         List<Item> findEntities =
-                itemRepository.findAllByDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase("УчеБ",
-                        "УчеБ", pageRequest);
+                itemRepository.findAvailableByText("УчеБ", pageRequest);
+
+        assertThat(findEntities, hasSize(1));
+        Item item = items.get(0);
+        assertThat(findEntities.get(0), allOf(
+                hasProperty("id", notNullValue()),
+                hasProperty("name", equalTo(item.getName())),
+                hasProperty("description", equalTo(item.getDescription())),
+                hasProperty("available", equalTo(true))
+        ));
+    }
+
+    @Test
+    void shouldNotFillFirstSearchPageWithPopularUnavailableItems() {
+        itemRepository.increasePopularity(items.get(1).getId(), 5);
+        PageRequest pageRequest = PageRequest.of(0, 1,
+                Sort.by(Sort.Direction.DESC, "popularity").and(Sort.by("id")));
+
+        List<Item> findEntities =
+                itemRepository.findAvailableByText("УчеБ", pageRequest);
+
+        assertThat(findEntities, hasSize(1));
+        assertThat(findEntities.get(0).getId(), equalTo(items.get(0).getId()));
+    }
+
+    @Test
+    void shouldOrderSearchByPopularityWhenPopularityIncreased() {
+        items.get(1).setAvailable(true);
+        em.flush();
+        itemRepository.increasePopularity(items.get(1).getId(), 5);
+        itemRepository.increasePopularity(items.get(0).getId(), 1);
+        PageRequest pageRequest = PageRequest.of(0, 10,
+                Sort.by(Sort.Direction.DESC, "popularity").and(Sort.by("id")));
+
+        List<Item> findEntities =
+                itemRepository.findAvailableByText("УчеБ", pageRequest);
 
         assertThat(findEntities, hasSize(2));
-        for (Item item : items) {
-            assertThat(findEntities, hasItem(allOf(
-                    hasProperty("id", notNullValue()),
-                    hasProperty("name", equalTo(item.getName())),
-                    hasProperty("description", equalTo(item.getDescription())),
-                    hasProperty("available", equalTo(item.getAvailable()))
-            )));
-        }
+        assertThat(findEntities.get(0).getId(), equalTo(items.get(1).getId()));
+        assertThat(findEntities.get(1).getId(), equalTo(items.get(0).getId()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package ru.practicum.shareit.item.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.ChangeTracker;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommentWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final ChangeTracker changeTracker = Mockito.mock(ChangeTracker.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+
+    private final Comment comment = Comment.builder()
+            .text("comment1")
+            .author(User.builder().id(2L).build())
+            .item(Item.builder().id(1L).build())
+            .created(LocalDateTime.now().withNano(0))
+            .build();
+
+    @Test
+    void shouldNotQueueWhenIngestionIsSync() {
+        CommentWriter writer = new CommentWriter(jdbcTemplate, transactionTemplate, changeTracker, registry,
+                "sync", 10, 2, 60_000);
+        writer.start();
+
+        assertThat(writer.offer(comment, 3L), equalTo(false));
+    }
+
+    @Test
+    void shouldWriteQueuedCommentsInBatches() throws InterruptedException {
+        CommentWriter writer = new CommentWriter(jdbcTemplate, transactionTemplate, changeTracker, registry,
+                "async", 3, 2, 60_000);
+        writer.start();
+
+        assertThat(writer.offer(comment, 3L), equalTo(true));
+        assertThat(writer.offer(comment, 3L), equalTo(true));
+        assertThat(writer.offer(comment, 3L), equalTo(true));
+        assertThat(writer.offer(comment, 3L), equalTo(false));
+        assertThat(writer.getQueueDepth(), equalTo(3));
+
+        writer.stop();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO comments"), anyList());
+        verify(changeTracker, times(3)).changed(3L);
+        assertThat(writer.getQueueDepth(), equalTo(0));
+        assertThat(writer.getWrittenCount(), equalTo(3L));
+        assertThat(registry.get("shareit.comments.queue.latency").timer().count(), equalTo(3L));
+        assertThat(writer.offer(comment, 3L), equalTo(false));
+    }
+
+    @Test
+    void shouldWriteEveryAcceptedCommentWhenStoppedWhileOffering() throws InterruptedException {
+        CommentWriter writer = new CommentWriter(jdbcTemplate, transactionTemplate, changeTracker, registry,
+                "async", 100_000, 50, 60_000);
+        writer.start();
+        AtomicLong accepted = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread producer = new Thread(() -> {
+                while (writer.offer(comment, 3L)) {
+                    accepted.incrementAndGet();
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        Thread.sleep(20);
+
+        writer.stop();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertThat(writer.getWrittenCount(), equalTo(accepted.get()));
+        assertThat(writer.getQueueDepth(), equalTo(0));
+    }
+
+    @Test
+    void shouldKeepCommentInFailedCommentsWhenItCannotBeWritten() throws InterruptedException {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO comments"), anyList()))
+                .thenThrow(new DataIntegrityViolationException("item is gone"));
+        CommentWriter writer = new CommentWriter(jdbcTemplate, transactionTemplate, changeTracker, registry,
+                "async", 10, 2, 60_000);
+        writer.start();
+        writer.offer(comment, 3L);
+
+        writer.stop();
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO failed_comments"), eq("comment1"), eq(2L), eq(1L),
+                any(), any(), eq("item is gone"));
+        assertThat(writer.getFailedCount(), equalTo(1L));
+        assertThat(writer.getDroppedCount(), equalTo(0L));
+        assertThat(writer.getWrittenCount(), equalTo(0L));
+    }
+
+    @Test
+    void shouldRetryCommentWhenDatabaseIsUnavailable() throws InterruptedException {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO comments"), anyList()))
+                .thenThrow(new CannotGetJdbcConnectionException("database is down"));
+        when(jdbcTemplate.update(startsWith("INSERT INTO failed_comments"), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new CannotGetJdbcConnectionException("database is down"));
+        CommentWriter writer = new CommentWriter(jdbcTemplate, transactionTemplate, changeTracker, registry,
+                "async", 10, 2, 60_000);
+        writer.start();
+        writer.offer(comment, 3L);
+
+        writer.flush();
+        assertThat(writer.getQueueDepth(), equalTo(1));
+        writer.flush();
+        assertThat(writer.getQueueDepth(), equalTo(1));
+        writer.flush();
+        assertThat(writer.getQueueDepth(), equalTo(0));
+        writer.stop();
+
+        assertThat(writer.getDroppedCount(), equalTo(1L));
+        assertThat(writer.getFailedCount(), equalTo(0L));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.item.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ItemGeoIndexTest {
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+
+    private ItemGeoIndex itemGeoIndex;
+
+    @BeforeEach
+    public void beforeEach() {
+        itemGeoIndex = new ItemGeoIndex(itemRepository);
+        itemGeoIndex.put(1L, 55.7558, 37.6173);
+        itemGeoIndex.put(2L, 55.7520, 37.5925);
+        itemGeoIndex.put(3L, 59.9343, 30.3351);
+    }
+
+    @Test
+    void shouldFindItemsWithinRadiusNearestFirst() {
+        List<Long> found = itemGeoIndex.findWithin(55.7500, 37.5900, 5);
+
+        assertThat(found, contains(2L, 1L));
+    }
+
+    @Test
+    void shouldFindItemsWithLargeRadius() {
+        List<Long> found = itemGeoIndex.findWithin(55.7500, 37.5900, 100);
+
+        assertThat(found, contains(2L, 1L));
+    }
+
+    @Test
+    void shouldMoveItemWhenLocationUpdated() {
+        itemGeoIndex.onItemSaved(new ItemSavedEvent(1L, "name", "desc", true, 59.9300, 30.3300, 1L, null));
+
+        assertThat(itemGeoIndex.findWithin(55.7500, 37.5900, 5), contains(2L));
+        assertThat(itemGeoIndex.findWithin(59.9300, 30.3300, 5), containsInAnyOrder(1L, 3L));
+    }
+
+    @Test
+    void shouldRemoveItemsOfDeletedUser() {
+        Mockito.when(itemRepository.findIdsByOwnerId(7L))
+                .thenReturn(List.of(1L));
+
+        itemGeoIndex.onUserDeleted(new UserDeletedEvent(7L));
+
+        assertThat(itemGeoIndex.findWithin(55.7500, 37.5900, 5), contains(2L));
+    }
+
+    @Test
+    void shouldRemoveItemWhenLocationCleared() {
+        itemGeoIndex.onItemSaved(new ItemSavedEvent(2L, "name", "desc", true, null, null, 1L, null));
+
+        assertThat(itemGeoIndex.findWithin(55.7500, 37.5900, 5), contains(1L));
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.item.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPhoto;
+import ru.practicum.shareit.item.repository.ItemPhotoRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+class ItemPhotoServiceImplTest {
+
+    private static final String HELLO_HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path root;
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final ItemPhotoRepository itemPhotoRepository = Mockito.mock(ItemPhotoRepository.class);
+    private ItemPhotoStorage itemPhotoStorage;
+    private ItemPhotoServiceImpl itemPhotoService;
+
+    @BeforeEach
+    public void beforeEach() {
+        itemPhotoStorage = new ItemPhotoStorage(root.toString(), 1024);
+        itemPhotoService = new ItemPhotoServiceImpl(itemRepository, itemPhotoRepository, itemPhotoStorage);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(Item.builder()
+                .id(1L)
+                .owner(User.builder().id(2L).build())
+                .build()));
+    }
+
+    @Test
+    void shouldLeaveFileOfFailedInsertToSweep() {
+        when(itemPhotoRepository.save(Mockito.any(ItemPhoto.class)))
+                .thenThrow(new DataIntegrityViolationException("item is gone"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> itemPhotoService.addPhoto(2L, 1L, "image/png", content()));
+
+        assertThat(Files.exists(itemPhotoStorage.resolve(HELLO_HASH)), equalTo(true));
+        assertThat(itemPhotoStorage.deleteIfUnused(HELLO_HASH, hash -> false), equalTo(true));
+    }
+
+    @Test
+    void shouldKeepFileWhileItsUploadIsSaving() {
+        when(itemPhotoRepository.save(Mockito.any(ItemPhoto.class))).thenAnswer(invocation -> {
+            assertThat(itemPhotoStorage.deleteIfUnused(HELLO_HASH, hash -> false), equalTo(false));
+            return invocation.getArgument(0);
+        });
+
+        itemPhotoService.addPhoto(2L, 1L, "image/png", content());
+
+        assertThat(Files.exists(itemPhotoStorage.resolve(HELLO_HASH)), equalTo(true));
+    }
+
+    @Test
+    void shouldNotStoreUploadOfOtherUser() throws IOException {
+        assertThrows(EntityNotFoundException.class,
+                () -> itemPhotoService.addPhoto(3L, 1L, "image/png", content()));
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.noneMatch(Files::isRegularFile), equalTo(true));
+        }
+    }
+
+    private static ByteArrayInputStream content() {
+        return new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ItemPhotoStorageTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldStorePhotoUnderItsHash() throws IOException {
+        ItemPhotoStorage storage = new ItemPhotoStorage(root.toString(), 1024);
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+
+        ItemPhotoStorage.StoredPhoto storedPhoto = storage.store(new ByteArrayInputStream(content));
+
+        assertThat(storedPhoto.getHash(),
+                equalTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824"));
+        assertThat(storedPhoto.getSize(), equalTo(5L));
+        assertThat(Files.readAllBytes(storage.resolve(storedPhoto.getHash())), equalTo(content));
+    }
+
+    @Test
+    void shouldKeepOneFileForSameContent() throws IOException {
+        ItemPhotoStorage storage = new ItemPhotoStorage(root.toString(), 1024);
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+
+        String first = storage.store(new ByteArrayInputStream(content)).getHash();
+        String second = storage.store(new ByteArrayInputStream(content)).getHash();
+
+        assertThat(first, equalTo(second));
+        try (var files = Files.list(root.resolve("tmp"))) {
+            assertThat(files.count(), equalTo(0L));
+        }
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPhotoTooLarge() {
+        ItemPhotoStorage storage = new ItemPhotoStorage(root.toString(), 4);
+
+        assertThrows(BadRequestException.class,
+                () -> storage.store(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8))));
+    }
+}
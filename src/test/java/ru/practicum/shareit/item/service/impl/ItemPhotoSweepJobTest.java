@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.repository.ItemPhotoRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+
+class ItemPhotoSweepJobTest {
+
+    @TempDir
+    Path root;
+
+    private final ItemPhotoRepository itemPhotoRepository = Mockito.mock(ItemPhotoRepository.class);
+    private ItemPhotoStorage itemPhotoStorage;
+    private ItemPhotoSweepJob itemPhotoSweepJob;
+
+    @BeforeEach
+    public void beforeEach() {
+        itemPhotoStorage = new ItemPhotoStorage(root.toString(), 1024);
+        itemPhotoSweepJob = new ItemPhotoSweepJob(itemPhotoStorage, itemPhotoRepository, 1, 60);
+    }
+
+    @Test
+    void shouldDeleteOnlyFilesWithoutPhotos() throws IOException {
+        String used = store("used");
+        String unused = store("unused");
+        when(itemPhotoRepository.findHashesIn(List.of(used)))
+                .thenReturn(List.of(used));
+
+        itemPhotoSweepJob.sweep();
+
+        assertThat(Files.exists(itemPhotoStorage.resolve(used)), equalTo(true));
+        assertThat(Files.exists(itemPhotoStorage.resolve(unused)), equalTo(false));
+    }
+
+    @Test
+    void shouldKeepFileOfUploadInProgress() throws IOException {
+        String hash = itemPhotoStorage.store(content("uploading")).getHash();
+
+        itemPhotoSweepJob.sweep();
+
+        assertThat(Files.exists(itemPhotoStorage.resolve(hash)), equalTo(true));
+    }
+
+    @Test
+    void shouldDeleteStaleTemporaryUploads() throws IOException {
+        Path stale = Files.createFile(Files.createDirectories(root.resolve("tmp")).resolve("upload-1.part"));
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+        Path fresh = Files.createFile(root.resolve("tmp").resolve("upload-2.part"));
+
+        itemPhotoSweepJob.sweep();
+
+        assertThat(Files.exists(stale), equalTo(false));
+        assertThat(Files.exists(fresh), equalTo(true));
+    }
+
+    private String store(String text) throws IOException {
+        String hash = itemPhotoStorage.store(content(text)).getHash();
+        itemPhotoStorage.release(hash);
+        return hash;
+    }
+
+    private static ByteArrayInputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.item.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@DataJpaTest
+@AutoConfigureTestDatabase
+@Import(ItemPopularityJob.class)
+class ItemPopularityJobTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemPopularityJob itemPopularityJob;
+
+    private LocalDateTime now;
+    private User user;
+    private Item drill;
+    private Item ladder;
+
+    @BeforeEach
+    public void beforeEach() {
+        now = LocalDateTime.now();
+        User owner = em.persist(User.builder().name("owner").email("owner@mail.ru").build());
+        user = em.persist(User.builder().name("user").email("user@mail.ru").build());
+        drill = em.persist(item("Дрель", owner));
+        ladder = em.persist(item("Лестница", owner));
+        em.persist(booking(drill, now.minusDays(3)));
+        em.persist(booking(drill, now.minusDays(2)));
+        em.persist(comment(ladder, now.minusDays(2)));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void shouldRebuildScoresAndStoreWatermarkWhenThereIsNoWatermark() {
+        Item hammer = em.persist(item("Молоток", em.find(User.class, user.getId())));
+        em.flush();
+        jdbcTemplate.update("UPDATE items SET popularity = 5, popularity_next = 100 WHERE id = ?", hammer.getId());
+
+        itemPopularityJob.refresh();
+
+        assertThat(popularity(drill), greaterThan(popularity(ladder)));
+        assertThat(popularity(ladder), greaterThan(0.0));
+        assertThat(popularity(hammer), equalTo(0.0));
+        assertThat(popularity(hammer, "popularity_next"), equalTo(0.0));
+        assertThat(watermark(), greaterThan(now.minusSeconds(1)));
+    }
+
+    @Test
+    void shouldCountOnlyEventsAfterStoredWatermark() {
+        jdbcTemplate.update("INSERT INTO job_watermarks (name, watermark) VALUES ('item-popularity', ?)",
+                Timestamp.valueOf(now.minusHours(1)));
+        jdbcTemplate.update("UPDATE items SET popularity = 1");
+        em.persist(comment(em.find(Item.class, ladder.getId()), now.minusMinutes(30)));
+        em.flush();
+
+        itemPopularityJob.refresh();
+
+        assertThat(popularity(drill), equalTo(1.0));
+        assertThat(popularity(ladder), greaterThan(1.0));
+        assertThat(watermark(), greaterThan(now.minusSeconds(1)));
+    }
+
+    private double popularity(Item item) {
+        return popularity(item, "popularity");
+    }
+
+    private double popularity(Item item, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM items WHERE id = ?", Double.class,
+                item.getId());
+    }
+
+    private LocalDateTime watermark() {
+        return jdbcTemplate.queryForObject("SELECT watermark FROM job_watermarks WHERE name = 'item-popularity'",
+                LocalDateTime.class);
+    }
+
+    private static Item item(String name, User owner) {
+        return Item.builder()
+                .name(name)
+                .description(name)
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+
+    private Booking booking(Item item, LocalDateTime end) {
+        return Booking.builder()
+                .start(end.minusDays(1))
+                .end(end)
+                .item(item)
+                .booker(em.find(User.class, user.getId()))
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+
+    private Comment comment(Item item, LocalDateTime created) {
+        return Comment.builder()
+                .text("Отлично")
+                .item(item)
+                .author(em.find(User.class, user.getId()))
+                .created(created)
+                .build();
+    }
+}
@@ -8,10 +8,15 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoByOwner;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
 import javax.persistence.EntityManager;
 
@@ -20,6 +25,7 @@ import java.util.List;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
 @SpringBootTest
@@ -28,6 +34,7 @@ import static org.hamcrest.Matchers.equalTo;
 class ItemServiceImplIntegrationTest extends EntitiesForItemTests {
 
     private final ItemService itemService;
+    private final UserService userService;
     private final EntityManager em;
 
 
@@ -95,7 +102,7 @@ class ItemServiceImplIntegrationTest extends EntitiesForItemTests {
 
     @Test
     void shouldGetUserItemsWithRequestAndComments() {
-        List<ItemDtoByOwner> userItems = itemService.getUserItems(users.get(0).getId(), 0, 5);
+        List<ItemDtoByOwner> userItems = itemService.getUserItems(users.get(0).getId(), 0, 5, false);
 
         assertThat(userItems, hasSize(2));
         Item checkedEntity = items.get(0);
@@ -133,9 +140,128 @@ class ItemServiceImplIntegrationTest extends EntitiesForItemTests {
         ));
     }
 
+    @Test
+    void shouldGetItemsByIdsInRequestedOrder() {
+        Long first = items.get(0).getId();
+        Long second = items.get(1).getId();
+
+        MultiGetResponse<ItemDtoByOwner> response = itemService.getItems(users.get(0).getId(),
+                List.of(second, -1L, first, second), false);
+
+        assertThat(response.getFound(), contains(
+                allOf(hasProperty("id", equalTo(second)), hasProperty("comments", empty())),
+                allOf(hasProperty("id", equalTo(first)),
+                        hasProperty("nextBooking", hasProperty("id", equalTo(bookings.get(0).getId()))),
+                        hasProperty("comments", hasSize(1)))));
+        assertThat(response.getMissing(), contains(-1L));
+    }
+
+    @Test
+    void shouldReportItemsOfDeletedOwnerAsMissing() {
+        Long first = items.get(0).getId();
+        Long second = items.get(1).getId();
+        userService.delete(users.get(0).getId());
+        em.flush();
+        em.clear();
+
+        MultiGetResponse<ItemDtoByOwner> response = itemService.getItems(users.get(1).getId(),
+                List.of(first, second), false);
+
+        assertThat(response.getFound(), empty());
+        assertThat(response.getMissing(), contains(first, second));
+    }
+
+    @Test
+    void shouldGetCommentStatsInsteadOfCommentsWhenRequested() {
+        CommentDto first = itemService.addComment(users.get(1).getId(), items.get(0).getId(),
+                CommentDto.builder().text("first").build());
+        CommentDto second = itemService.addComment(users.get(1).getId(), items.get(0).getId(),
+                CommentDto.builder().text("second").build());
+        em.flush();
+        em.clear();
+
+        List<ItemDtoByOwner> userItems = itemService.getUserItems(users.get(0).getId(), 0, 5, true);
+
+        assertThat(userItems, hasSize(2));
+        assertThat(userItems.get(0), allOf(
+                hasProperty("comments", nullValue()),
+                hasProperty("commentCount", equalTo(2)),
+                hasProperty("lastCommentId", equalTo(second.getId())),
+                hasProperty("lastCommentAt", notNullValue())
+        ));
+        assertThat(second.getId(), greaterThan(first.getId()));
+        assertThat(userItems.get(1), allOf(
+                hasProperty("commentCount", equalTo(0)),
+                hasProperty("lastCommentId", nullValue())
+        ));
+    }
+
+    @Test
+    void shouldRenderCommentsOfDeletedAuthorUntilPurged() {
+        Long authorId = users.get(1).getId();
+        userService.delete(authorId);
+        em.flush();
+        em.clear();
+
+        ItemDtoByOwner item = itemService.getItem(users.get(0).getId(), items.get(0).getId(), false);
+
+        assertThat(item.getComments(), hasItem(hasProperty("authorName", equalTo(users.get(1).getName()))));
+        assertThrows(EntityNotFoundException.class, () -> userService.get(authorId));
+    }
+
+    @Test
+    void shouldHideItemOfDeletedOwner() {
+        Long itemId = items.get(0).getId();
+        Long viewerId = users.get(1).getId();
+        userService.delete(users.get(0).getId());
+        em.flush();
+        em.clear();
+
+        assertThrows(EntityNotFoundException.class, () -> itemService.getItem(viewerId, itemId, false));
+        assertThat(itemService.getItemEtag(viewerId, itemId, false), nullValue());
+        assertThrows(EntityNotFoundException.class,
+                () -> itemService.addComment(viewerId, itemId, CommentDto.builder().text("late").build()));
+    }
+
+    @Test
+    void shouldChangeItemEtagWhenCommentIsAdded() {
+        Long ownerId = users.get(0).getId();
+        Long itemId = items.get(0).getId();
+        String before = itemService.getItemEtag(ownerId, itemId, false);
+
+        itemService.addComment(users.get(1).getId(), itemId, CommentDto.builder().text("again").build());
+        em.flush();
+        em.clear();
+
+        assertThat(itemService.getItemEtag(ownerId, itemId, false), not(equalTo(before)));
+    }
+
+    @Test
+    void shouldChangeItemEtagWhenCommentAuthorIsRenamed() {
+        Long ownerId = users.get(0).getId();
+        Long commented = items.get(0).getId();
+        Long notCommented = items.get(1).getId();
+        String commentedBefore = itemService.getItemEtag(ownerId, commented, true);
+        String notCommentedBefore = itemService.getItemEtag(ownerId, notCommented, true);
+
+        userService.update(users.get(1).getId(), UserDto.builder().name("renamed").build());
+        em.flush();
+        em.clear();
+
+        assertThat(itemService.getItemEtag(ownerId, commented, true), not(equalTo(commentedBefore)));
+        assertThat(itemService.getItemEtag(ownerId, notCommented, true), equalTo(notCommentedBefore));
+    }
+
+    @Test
+    void shouldNotGiveItemEtagToUnknownUser() {
+        assertThrows(EntityNotFoundException.class,
+                () -> itemService.getItemEtag(-1L, items.get(0).getId(), false));
+        assertThrows(EntityNotFoundException.class, () -> itemService.getUserItemsEtag(-1L, 0, 5, false));
+    }
+
     @Test
     void shouldGetUserItemsWithUserDoesntHaveEntity() {
-        List<ItemDtoByOwner> userItems = itemService.getUserItems(users.get(1).getId(), 0, 5);
+        List<ItemDtoByOwner> userItems = itemService.getUserItems(users.get(1).getId(), 0, 5, false);
 
         assertThat(userItems, hasSize(0));
 
@@ -144,7 +270,7 @@ class ItemServiceImplIntegrationTest extends EntitiesForItemTests {
     @Test
     void shouldSearchAllItemsByTextContent() {
 
-        List<ItemDto> itemsDto = itemService.search("УчеБ", 0, 5);
+        List<ItemDto> itemsDto = itemService.search("УчеБ", 0, 5, false);
         Item item = items.get(0);
 
         assertThat(itemsDto, hasSize(1));
@@ -159,7 +285,7 @@ class ItemServiceImplIntegrationTest extends EntitiesForItemTests {
     @Test
     void shouldSearchOneItemByTextContent() {
 
-        List<ItemDto> itemsDto = itemService.search("КиТай", 0, 5);
+        List<ItemDto> itemsDto = itemService.search("КиТай", 0, 5, false);
 
         assertThat(itemsDto, hasSize(1));
         assertThat(itemsDto, hasItem(allOf(
@@ -172,7 +298,7 @@ class ItemServiceImplIntegrationTest extends EntitiesForItemTests {
 
     @Test
     void shouldSearchNoneItemByTextContent() {
-        List<ItemDto> itemsDto = itemService.search("qwert", 0, 5);
+        List<ItemDto> itemsDto = itemService.search("qwert", 0, 5, false);
 
         assertThat(itemsDto, hasSize(0));
     }
@@ -7,11 +7,12 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.impl.CompletedRentalCache;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.CommentDto;
@@ -24,6 +25,8 @@ import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.utils.ChangeTracker;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -54,6 +57,18 @@ class ItemServiceImplTest extends EntitiesForItemTests {
     @Mock
     private CommentRepository commentRepository;
 
+    @Mock
+    private ItemGeoIndex itemGeoIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ChangeTracker changeTracker;
+
+    @Mock
+    private CommentWriter commentWriter;
+
     private ItemService itemService;
 
     private final Item item1 = items.get(0);
@@ -67,13 +82,15 @@ class ItemServiceImplTest extends EntitiesForItemTests {
     @BeforeEach
     public void beforeEach() {
         itemService = new ItemServiceImpl(itemRepository, userRepository,
-                bookingRepository, commentRepository, itemRequestRepository);
+                new UserExistenceValidator(userRepository, 1000),
+                bookingRepository, commentRepository, itemRequestRepository, itemGeoIndex, eventPublisher, changeTracker,
+                new CompletedRentalCache(100), commentWriter);
     }
 
     @Test
     void saveItem() {
         Item newItem = item1.toBuilder().id(1L).build();
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
         when(itemRepository.save(Mockito.any(Item.class)))
                 .thenReturn(newItem);
@@ -95,7 +112,7 @@ class ItemServiceImplTest extends EntitiesForItemTests {
     @Test
     void shouldSaveItemWithoutRequestWhenUseSaveItemWithoutRequestIdParameter() {
         Item newItem = item1.toBuilder().build();
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
         when(itemRepository.save(Mockito.any(Item.class)))
                 .thenReturn(newItem);
@@ -263,8 +280,8 @@ class ItemServiceImplTest extends EntitiesForItemTests {
 
     @Test
     void getAllUserItems() {
-        when(userRepository.findById(user2.getId()))
-                .thenReturn(Optional.of(user2));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
         when(itemRepository.findByOwnerId(user2.getId()))
                 .thenReturn(List.of(item1));
         when(bookingRepository.findByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
@@ -272,7 +289,7 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         when(commentRepository.findByItem_IdIn(List.of(item1.getId())))
                 .thenReturn(List.of(comment));
 
-        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20);
+        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20, false);
 
         assertThat(allUserItems, hasItem(allOf(
                 hasProperty("id", equalTo(item1.getId())),
@@ -316,8 +333,8 @@ class ItemServiceImplTest extends EntitiesForItemTests {
                 .start(LocalDateTime.now().plusDays(2))
                 .end(LocalDateTime.now().plusDays(3))
                 .build();
-        when(userRepository.findById(user2.getId()))
-                .thenReturn(Optional.of(user2));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
         when(itemRepository.findByOwnerId(user2.getId()))
                 .thenReturn(List.of(item1));
         when(bookingRepository.findByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
@@ -325,7 +342,7 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         when(commentRepository.findByItem_IdIn(List.of(item1.getId())))
                 .thenReturn(List.of(comment));
 
-        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20);
+        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20, false);
 
         assertThat(allUserItems, hasItem(allOf(
                 hasProperty("id", equalTo(item1.getId())),
@@ -362,8 +379,8 @@ class ItemServiceImplTest extends EntitiesForItemTests {
                 .start(LocalDateTime.now().minusDays(3))
                 .end(LocalDateTime.now().minusDays(2))
                 .build();
-        when(userRepository.findById(user2.getId()))
-                .thenReturn(Optional.of(user2));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
         when(itemRepository.findByOwnerId(user2.getId()))
                 .thenReturn(List.of(item1));
         when(bookingRepository.findByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
@@ -371,7 +388,7 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         when(commentRepository.findByItem_IdIn(List.of(item1.getId())))
                 .thenReturn(List.of(comment));
 
-        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20);
+        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20, false);
 
         assertThat(allUserItems, hasItem(allOf(
                 hasProperty("id", equalTo(item1.getId())),
@@ -398,10 +415,36 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         )));
     }
 
+    @Test
+    void shouldNotLoadCommentsWhenGetUserItemsWithCommentStats() {
+        Item commentedItem = item1.toBuilder()
+                .commentCount(3)
+                .lastCommentId(7L)
+                .lastCommentAt(comment.getCreated())
+                .build();
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRepository.findByOwnerId(user2.getId()))
+                .thenReturn(List.of(commentedItem));
+        when(bookingRepository.findByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(List.of());
+
+        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user2.getId(), 0, 20, true);
+
+        assertThat(allUserItems, hasSize(1));
+        assertThat(allUserItems.get(0), allOf(
+                hasProperty("comments", nullValue()),
+                hasProperty("commentCount", equalTo(3)),
+                hasProperty("lastCommentId", equalTo(7L)),
+                hasProperty("lastCommentAt", equalTo(comment.getCreated()))
+        ));
+        verify(commentRepository, Mockito.never()).findByItem_IdIn(Mockito.anyCollection());
+    }
+
     @Test
     void shouldEmptyListWhenUserWithoutItemsUseGetAllUserItems() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(itemRepository.findByOwnerId(user1.getId()))
                 .thenReturn(List.of());
         when(bookingRepository.findByItemOwnerId(Mockito.anyLong(), Mockito.any(Pageable.class)))
@@ -409,23 +452,23 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         when(commentRepository.findByItem_IdIn(List.of()))
                 .thenReturn(List.of());
 
-        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user1.getId(), 0, 20);
+        List<ItemDtoByOwner> allUserItems = itemService.getUserItems(user1.getId(), 0, 20, false);
 
         assertThat(allUserItems, emptyCollectionOf(ItemDtoByOwner.class));
     }
 
     @Test
     void getItem() {
-        when(userRepository.findById(user2.getId()))
-                .thenReturn(Optional.of(user2));
-        when(itemRepository.findById(item1.getId()))
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
         when(bookingRepository.findByItem_IdAndItemOwnerId(Mockito.anyLong(), Mockito.anyLong()))
                 .thenReturn(List.of(booking1, booking2));
         when(commentRepository.findByItem_Id(item1.getId()))
                 .thenReturn(List.of(comment));
 
-        ItemDtoByOwner foundItem = itemService.getItem(user2.getId(), item1.getId());
+        ItemDtoByOwner foundItem = itemService.getItem(user2.getId(), item1.getId(), false);
 
         assertThat(foundItem, allOf(
                 hasProperty("id", equalTo(item1.getId())),
@@ -461,16 +504,16 @@ class ItemServiceImplTest extends EntitiesForItemTests {
 
     @Test
     void shouldUserGetItemWithoutBookings() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.of(user1));
-        when(itemRepository.findById(item1.getId()))
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
         when(bookingRepository.findByItem_IdAndItemOwnerId(Mockito.anyLong(), Mockito.anyLong()))
                 .thenReturn(List.of());
         when(commentRepository.findByItem_Id(item1.getId()))
                 .thenReturn(List.of(comment));
 
-        ItemDtoByOwner foundItem = itemService.getItem(user1.getId(), item1.getId());
+        ItemDtoByOwner foundItem = itemService.getItem(user1.getId(), item1.getId(), false);
 
         assertThat(foundItem, allOf(
                 hasProperty("id", equalTo(item1.getId())),
@@ -493,12 +536,11 @@ class ItemServiceImplTest extends EntitiesForItemTests {
     @Test
     void search() {
         String text = "Учебник";
-        when(itemRepository.findAllByDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(
-                Mockito.anyString(),
+        when(itemRepository.findAvailableByText(
                 Mockito.anyString(),
                 Mockito.any(Pageable.class)
-        )).thenReturn(List.of(item1, item2));
-        List<ItemDto> search = itemService.search(text, 0, 20);
+        )).thenReturn(List.of(item1));
+        List<ItemDto> search = itemService.search(text, 0, 20, false);
 
         assertThat(search, hasSize(1));
         assertThat(search.get(0), allOf(
@@ -509,25 +551,51 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         ));
     }
 
+    @Test
+    void shouldSearchNearbyItemsInDistanceOrder() {
+        when(itemGeoIndex.findWithin(55.75, 37.61, 5))
+                .thenReturn(List.of(item2.getId(), item1.getId()));
+        when(itemRepository.findAvailableByIdInAndText(List.of(item2.getId(), item1.getId()), "Учебник"))
+                .thenReturn(List.of(item1, item2));
+
+        List<ItemDto> search = itemService.searchNearby("Учебник", 55.75, 37.61, 5, 0, 20, false);
+
+        assertThat(search, hasSize(2));
+        assertThat(search.get(0).getId(), equalTo(item2.getId()));
+        assertThat(search.get(1).getId(), equalTo(item1.getId()));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSaveItemWithOnlyLatitude() {
+        ItemDto itemWithLatitude = ItemDto.builder()
+                .name(itemDto.getName())
+                .description(itemDto.getDescription())
+                .available(true)
+                .lat(55.75)
+                .build();
+
+        assertThrows(BadRequestException.class, () -> itemService.saveItem(user1.getId(), itemWithLatitude));
+    }
+
     @Test
     void shouldEmptyListWhenTextIsBlank() {
         String text = "";
-        List<ItemDto> search = itemService.search(text, 0, 20);
+        List<ItemDto> search = itemService.search(text, 0, 20, false);
 
         assertThat(search, hasSize(0));
     }
 
     @Test
     void addComment() {
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
-        when(itemRepository.findById(item1.getId()))
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
-        when(bookingRepository.findTopByStatusNotLikeAndBookerIdAndItemId(Mockito.any(BookingStatus.class),
-                Mockito.anyLong(),
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(Mockito.anyLong(),
                 Mockito.anyLong(),
-                Mockito.any(Sort.class)))
-                .thenReturn(Optional.of(booking2));
+                Mockito.any(BookingStatus.class),
+                Mockito.any(LocalDateTime.class)))
+                .thenReturn(true);
         when(commentRepository.save(Mockito.any(Comment.class)))
                 .thenReturn(comment);
 
@@ -544,17 +612,67 @@ class ItemServiceImplTest extends EntitiesForItemTests {
         ));
     }
 
+    @Test
+    void shouldNotQueryBookingsWhenRentalCompletionIsCached() {
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(Optional.of(user1));
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
+                .thenReturn(Optional.of(item1));
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(Mockito.anyLong(),
+                Mockito.anyLong(),
+                Mockito.any(BookingStatus.class),
+                Mockito.any(LocalDateTime.class)))
+                .thenReturn(true);
+        when(commentRepository.save(Mockito.any(Comment.class)))
+                .thenReturn(comment);
+
+        itemService.addComment(user1.getId(), item1.getId(), CommentDto.builder().text("first").build());
+        itemService.addComment(user1.getId(), item1.getId(), CommentDto.builder().text("second").build());
+
+        verify(bookingRepository, Mockito.times(1)).existsByBookerIdAndItemIdAndStatusNotAndEndBefore(
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.any(BookingStatus.class), Mockito.any(LocalDateTime.class));
+    }
+
+    @Test
+    void shouldQueueCommentWhenWriteBehindAcceptsIt() {
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(Optional.of(user1));
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
+                .thenReturn(Optional.of(item1));
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(Mockito.anyLong(),
+                Mockito.anyLong(),
+                Mockito.any(BookingStatus.class),
+                Mockito.any(LocalDateTime.class)))
+                .thenReturn(true);
+        when(commentWriter.offer(Mockito.any(Comment.class), Mockito.eq(item1.getOwner().getId())))
+                .thenReturn(true);
+
+        CommentDto commentItem = itemService.addComment(user1.getId(), item1.getId(), CommentDto.builder()
+                .text(comment.getText())
+                .build());
+
+        assertThat(commentItem, allOf(
+                hasProperty("text", equalTo(comment.getText())),
+                hasProperty("authorName", equalTo(user1.getName()))
+        ));
+        verify(commentRepository, Mockito.never()).save(Mockito.any(Comment.class));
+    }
+
     @Test
     void shouldNotCreatedCommentWhenUserNotUsedItem() {
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
-        when(itemRepository.findById(item1.getId()))
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
-        when(bookingRepository.findTopByStatusNotLikeAndBookerIdAndItemId(Mockito.any(BookingStatus.class),
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(Mockito.anyLong(),
                 Mockito.anyLong(),
+                Mockito.any(BookingStatus.class),
+                Mockito.any(LocalDateTime.class)))
+                .thenReturn(false);
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNot(Mockito.anyLong(),
                 Mockito.anyLong(),
-                Mockito.any(Sort.class)))
-                .thenReturn(Optional.ofNullable(booking1));
+                Mockito.any(BookingStatus.class)))
+                .thenReturn(true);
 
         assertThrows(BadRequestException.class,
                 () -> itemService.addComment(user1.getId(), item1.getId(), CommentDto.builder()
@@ -564,15 +682,19 @@ class ItemServiceImplTest extends EntitiesForItemTests {
 
     @Test
     void shouldNotCreatedCommentWhenItemRejectedOrNoneBookingOrUser() {
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.of(user1));
-        when(itemRepository.findById(item1.getId()))
+        when(itemRepository.findByIdAndOwnerDeletedAtIsNull(item1.getId()))
                 .thenReturn(Optional.of(item1));
-        when(bookingRepository.findTopByStatusNotLikeAndBookerIdAndItemId(Mockito.any(BookingStatus.class),
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNotAndEndBefore(Mockito.anyLong(),
                 Mockito.anyLong(),
+                Mockito.any(BookingStatus.class),
+                Mockito.any(LocalDateTime.class)))
+                .thenReturn(false);
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusNot(Mockito.anyLong(),
                 Mockito.anyLong(),
-                Mockito.any(Sort.class)))
-                .thenReturn(Optional.empty());
+                Mockito.any(BookingStatus.class)))
+                .thenReturn(false);
 
         assertThrows(BadRequestException.class,
                 () -> itemService.addComment(user1.getId(), item1.getId(), CommentDto.builder()
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase
+@Import(ItemRequestJsonRepository.class)
+class ItemRequestJsonRepositoryTest {
+
+    private static final Set<ItemRequestStatus> OPEN = EnumSet.of(ItemRequestStatus.OPEN);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ItemRequestJsonRepository itemRequestJsonRepository;
+
+    private User requestor;
+    private User owner;
+    private ItemRequest older;
+    private ItemRequest newer;
+    private Item item;
+
+    @BeforeEach
+    public void beforeEach() {
+        requestor = em.persist(User.builder().name("user1").email("user1@mail.ru").build());
+        owner = em.persist(User.builder().name("user2").email("user2@mail.ru").build());
+        older = em.persist(ItemRequest.builder()
+                .description("Учебник китайского")
+                .requestor(requestor)
+                .created(LocalDateTime.now().minusDays(1).withNano(0))
+                .build());
+        newer = em.persist(ItemRequest.builder()
+                .description("Дрель")
+                .requestor(requestor)
+                .created(LocalDateTime.now().withNano(0))
+                .build());
+        item = em.persist(Item.builder()
+                .name("Учебник")
+                .description("Учебник по \"китайскому\" языку")
+                .available(true)
+                .owner(owner)
+                .request(older)
+                .build());
+        em.flush();
+    }
+
+    @Test
+    void shouldAggregateItemsIntoJsonWhenUseFindByRequestorId() {
+        List<ItemRequestRow> rows = new ArrayList<>();
+
+        itemRequestJsonRepository.findByRequestorId(requestor.getId(), rows::add);
+
+        assertThat(rows, contains(
+                hasProperty("id", equalTo(newer.getId())),
+                hasProperty("id", equalTo(older.getId()))));
+        assertThat(rows.get(0).getItemsJson(), equalTo("[]"));
+        assertThat(rows.get(1).getCreated(), equalTo(older.getCreated()));
+        assertThat(rows.get(1).getItemsJson(), equalTo("[{\"id\":" + item.getId()
+                + ",\"name\":\"Учебник\",\"description\":\"Учебник по \\\"китайскому\\\" языку\",\"ownerId\":"
+                + owner.getId() + ",\"available\":true,\"requestId\":" + older.getId() + "}]"));
+    }
+
+    @Test
+    void shouldSkipOwnRequestsAndPageWhenUseFindByRequestorIdNot() {
+        List<ItemRequestRow> rows = new ArrayList<>();
+
+        itemRequestJsonRepository.findByRequestorIdNot(owner.getId(), OPEN, 1, 1, rows::add);
+        itemRequestJsonRepository.findByRequestorIdNot(requestor.getId(), OPEN, 0, 10, rows::add);
+
+        assertThat(rows, contains(hasProperty("id", equalTo(older.getId()))));
+    }
+
+    @Test
+    void shouldReturnOlderRequestsWhenUseFindByRequestorIdNotBefore() {
+        List<ItemRequestRow> rows = new ArrayList<>();
+
+        itemRequestJsonRepository.findByRequestorIdNotBefore(owner.getId(), OPEN, newer.getCreated(), newer.getId(),
+                10, rows::add);
+
+        assertThat(rows, contains(hasProperty("id", equalTo(older.getId()))));
+    }
+
+    @Test
+    void shouldSkipClosedRequestsUnlessRequestedWhenUseFindByRequestorIdNot() {
+        newer.setStatus(ItemRequestStatus.EXPIRED);
+        em.flush();
+        List<ItemRequestRow> open = new ArrayList<>();
+        List<ItemRequestRow> all = new ArrayList<>();
+
+        itemRequestJsonRepository.findByRequestorIdNot(owner.getId(), OPEN, 0, 10, open::add);
+        itemRequestJsonRepository.findByRequestorIdNot(owner.getId(), EnumSet.allOf(ItemRequestStatus.class),
+                0, 10, all::add);
+
+        assertThat(open, contains(hasProperty("id", equalTo(older.getId()))));
+        assertThat(all, contains(
+                allOf(hasProperty("id", equalTo(newer.getId())), hasProperty("status", equalTo("EXPIRED"))),
+                allOf(hasProperty("id", equalTo(older.getId())), hasProperty("status", equalTo("OPEN")))));
+    }
+
+    @Test
+    void shouldLeaveOutRequestsAndItemsOfDeletedUsers() {
+        owner.setDeletedAt(LocalDateTime.now());
+        em.flush();
+        List<ItemRequestRow> own = new ArrayList<>();
+        itemRequestJsonRepository.findByRequestorId(requestor.getId(), own::add);
+
+        requestor.setDeletedAt(LocalDateTime.now());
+        em.flush();
+        List<ItemRequestRow> feed = new ArrayList<>();
+        itemRequestJsonRepository.findByRequestorIdNot(owner.getId(), OPEN, 0, 10, feed::add);
+
+        assertThat(own, hasSize(2));
+        assertThat(own.get(1).getItemsJson(), equalTo("[]"));
+        assertThat(feed, empty());
+    }
+
+    @Test
+    void shouldFindRequestWhenUseFindById() {
+        Optional<ItemRequestRow> row = itemRequestJsonRepository.findById(older.getId());
+
+        assertThat(row.isPresent(), equalTo(true));
+        assertThat(row.get().getRequestorId(), equalTo(requestor.getId()));
+        assertThat(itemRequestJsonRepository.findById(-1L).isPresent(), equalTo(false));
+    }
+}
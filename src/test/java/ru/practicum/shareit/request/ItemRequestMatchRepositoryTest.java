@@ -0,0 +1,86 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.TextIndex;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase
+@Import(ItemRequestMatchRepository.class)
+class ItemRequestMatchRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ItemRequestMatchRepository itemRequestMatchRepository;
+
+    private ItemRequest request;
+    private Item ownItem;
+    private Item drill;
+    private Item screwdriver;
+
+    @BeforeEach
+    public void beforeEach() {
+        User requestor = em.persist(User.builder().name("user1").email("user1@mail.ru").build());
+        User owner = em.persist(User.builder().name("user2").email("user2@mail.ru").build());
+        request = em.persist(ItemRequest.builder()
+                .description("Нужна дрель")
+                .requestor(requestor)
+                .created(LocalDateTime.now().withNano(0))
+                .build());
+        ownItem = em.persist(item("Дрель", requestor));
+        drill = em.persist(item("Дрель ударная", owner));
+        screwdriver = em.persist(item("Отвертка", owner));
+        em.flush();
+    }
+
+    @Test
+    void shouldReturnMatchedItemsOfOtherOwnersByScoreWhenUseFindItems() {
+        itemRequestMatchRepository.replace(request.getId(), List.of(
+                new TextIndex.Hit(ownItem.getId(), 3.0),
+                new TextIndex.Hit(screwdriver.getId(), 1.0),
+                new TextIndex.Hit(drill.getId(), 2.0)));
+
+        List<ItemDto> items = itemRequestMatchRepository.findItems(request.getId());
+
+        assertThat(items, contains(
+                allOf(hasProperty("id", equalTo(drill.getId())),
+                        hasProperty("name", equalTo("Дрель ударная")),
+                        hasProperty("requestId", nullValue())),
+                hasProperty("id", equalTo(screwdriver.getId()))));
+    }
+
+    @Test
+    void shouldReplacePreviousMatchesWhenUseReplace() {
+        itemRequestMatchRepository.replace(request.getId(), List.of(new TextIndex.Hit(drill.getId(), 2.0)));
+        itemRequestMatchRepository.replace(request.getId(), List.of(new TextIndex.Hit(screwdriver.getId(), 1.0)));
+
+        assertThat(itemRequestMatchRepository.findItems(request.getId()),
+                contains(hasProperty("id", equalTo(screwdriver.getId()))));
+    }
+
+    private static Item item(String name, User owner) {
+        return Item.builder()
+                .name(name)
+                .description(name)
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+}
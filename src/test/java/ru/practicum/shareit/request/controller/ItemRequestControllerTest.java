@@ -8,8 +8,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -21,7 +25,10 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemRequestController.class)
@@ -123,7 +130,8 @@ class ItemRequestControllerTest {
 
     @Test
     void shouldGetAllRequestsCreateWhenUseAllRequests() throws Exception {
-        when(itemRequestService.getAllRequests(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt()))
+        when(itemRequestService.getAllRequests(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.anyBoolean()))
                 .thenReturn(List.of(itemRequestDto));
 
         this.mockMvc.perform(get("/requests/all")
@@ -139,6 +147,27 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$[0].items[0]").value(itemDto));
     }
 
+    @Test
+    void shouldReturnNextCursorWhenUseAllRequestsWithFullPage() throws Exception {
+        ItemRequestDto request = ItemRequestDto.builder()
+                .id(5L)
+                .description("Учебник китайского")
+                .requestorId(1L)
+                .created(LocalDateTime.now().withNano(0))
+                .build();
+        when(itemRequestService.getAllRequestsAfter(2L, "abc.1", 1, false))
+                .thenReturn(List.of(request));
+
+        this.mockMvc.perform(get("/requests/all")
+                        .header(USER_ID_HEADER, 2L)
+                        .param("after", "abc.1")
+                        .param("size", "1")
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Next-Cursor", ItemRequestCursor.of(request).encode()));
+    }
+
     @Test
     void shouldGetItemRequestCreateWhenUseItemRequest() throws Exception {
         when(itemRequestService.getRequest(Mockito.anyLong(), Mockito.anyLong()))
@@ -157,6 +186,78 @@ class ItemRequestControllerTest {
 
     }
 
+    @Test
+    void shouldSubscribeFromLastEventIdWhenUseStream() throws Exception {
+        when(itemRequestService.subscribe(2L, 7L))
+                .thenReturn(new SseEmitter());
+
+        this.mockMvc.perform(get("/requests/stream")
+                        .header(USER_ID_HEADER, 2L)
+                        .header("Last-Event-ID", "7")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void shouldGetMatchedItemsWhenUseMatches() throws Exception {
+        when(itemRequestService.getMatches(2L, 1L))
+                .thenReturn(List.of(itemDto));
+
+        this.mockMvc.perform(get("/requests/{id}/matches", 1)
+                        .header(USER_ID_HEADER, 2L)
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]").value(itemDto));
+    }
+
+    @Test
+    void shouldSearchRequestsWhenUseSearch() throws Exception {
+        when(itemRequestService.searchRequests(2L, "учебник", 0, 5))
+                .thenReturn(List.of(itemRequestDto));
+
+        this.mockMvc.perform(get("/requests/search")
+                        .header(USER_ID_HEADER, 2L)
+                        .param("text", "учебник")
+                        .param("size", "5")
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(itemRequestDto.getId()));
+    }
+
+    @Test
+    void shouldStreamRequestsAssembledByDatabaseWhenUseAllRequestsWithStream() throws Exception {
+        StreamingResponseBody body = out -> out.write("[{\"id\":1,\"items\":[]}]".getBytes(StandardCharsets.UTF_8));
+        when(itemRequestService.streamAllRequests(2L, 0, 10, null, false))
+                .thenReturn(body);
+
+        MvcResult result = this.mockMvc.perform(get("/requests/all")
+                        .header(USER_ID_HEADER, 2L)
+                        .param("stream", "true")
+                        .accept("*/*"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void shouldThrowsStatus404WhenUseStreamItemRequestWithRequestNotFound() throws Exception {
+        when(itemRequestService.streamRequest(2L, 1L))
+                .thenThrow(new EntityNotFoundException("not Found"));
+
+        this.mockMvc.perform(get("/requests/{id}", 1)
+                        .header(USER_ID_HEADER, 2L)
+                        .param("stream", "true")
+                        .accept("*/*"))
+                .andExpect(status().isNotFound());
+    }
+
     private String asJsonString(final Object obj) {
         try {
             return objectMapper.writeValueAsString(obj);
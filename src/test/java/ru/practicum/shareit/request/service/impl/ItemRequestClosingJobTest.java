@@ -0,0 +1,58 @@
+package ru.practicum.shareit.request.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemRequestClosingJobTest {
+
+    private final ItemRequestRepository itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
+    private final ItemRequestTimeline itemRequestTimeline = Mockito.mock(ItemRequestTimeline.class);
+    private final ItemRequestTextIndex itemRequestTextIndex = Mockito.mock(ItemRequestTextIndex.class);
+
+    private final ItemRequestClosingJob job =
+            new ItemRequestClosingJob(itemRequestRepository, itemRequestTimeline, itemRequestTextIndex, 90, 2);
+
+    @Test
+    void shouldCloseRequestsInBatchesAndDropThemFromTimeline() {
+        when(itemRequestRepository.findIdsWithItems(ItemRequestStatus.OPEN, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(itemRequestRepository.findIdsWithoutItemsCreatedBefore(Mockito.eq(ItemRequestStatus.OPEN),
+                Mockito.any(), Mockito.eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(4L));
+
+        job.close();
+
+        verify(itemRequestRepository).updateStatus(List.of(1L, 2L), ItemRequestStatus.OPEN,
+                ItemRequestStatus.FULFILLED);
+        verify(itemRequestRepository).updateStatus(List.of(3L), ItemRequestStatus.OPEN,
+                ItemRequestStatus.FULFILLED);
+        verify(itemRequestRepository).updateStatus(List.of(4L), ItemRequestStatus.OPEN,
+                ItemRequestStatus.EXPIRED);
+        verify(itemRequestTimeline).remove(List.of(1L, 2L));
+        verify(itemRequestTimeline).remove(List.of(3L));
+        verify(itemRequestTimeline).remove(List.of(4L));
+        verify(itemRequestTextIndex).remove(List.of(4L));
+    }
+
+    @Test
+    void shouldNotUpdateAnythingWhenNothingToClose() {
+        when(itemRequestRepository.findIdsWithItems(Mockito.any(), Mockito.any()))
+                .thenReturn(List.of());
+        when(itemRequestRepository.findIdsWithoutItemsCreatedBefore(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of());
+
+        job.close();
+
+        verify(itemRequestRepository, never()).updateStatus(Mockito.any(), Mockito.any(), Mockito.any());
+        verify(itemRequestTimeline, never()).remove(Mockito.any());
+    }
+}
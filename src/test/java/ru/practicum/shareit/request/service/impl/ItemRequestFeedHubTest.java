@@ -0,0 +1,207 @@
+package ru.practicum.shareit.request.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.when;
+
+class ItemRequestFeedHubTest {
+
+    private final ItemRequestRepository itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
+    private final ItemRequestFeedHub hub = new ItemRequestFeedHub(itemRequestRepository, 60_000, 2, 10, 1, 100);
+
+    @AfterEach
+    public void stopHub() {
+        hub.stop();
+    }
+
+    @Test
+    void shouldPushRequestsOfOtherUsersToSubscriber() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter(1);
+        hub.subscribe(2L, null, emitter);
+
+        hub.publish(request(5L, 2L));
+        hub.publish(request(6L, 1L));
+
+        assertThat(emitter.await(), equalTo(true));
+        assertThat(emitter.ids(), contains("6"));
+        assertThat(hub.getSubscriberCount(), equalTo(1));
+    }
+
+    @Test
+    void shouldReplayMissedRequestsBeforeLiveOnesWhenSubscribeWithLastEventId() throws InterruptedException {
+        User requestor = User.builder().id(1L).build();
+        when(itemRequestRepository.findByIdGreaterThanAndRequestorIdNotAndRequestorDeletedAtIsNull(Mockito.eq(3L),
+                Mockito.eq(2L), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(ItemRequest.builder()
+                        .id(4L)
+                        .description("Дрель")
+                        .requestor(requestor)
+                        .created(LocalDateTime.now())
+                        .build()));
+        RecordingEmitter emitter = new RecordingEmitter(2);
+
+        hub.subscribe(2L, 3L, emitter);
+        hub.publish(request(4L, 1L));
+        hub.publish(request(5L, 1L));
+
+        assertThat(emitter.await(), equalTo(true));
+        assertThat(emitter.ids(), contains("4", "5"));
+    }
+
+    @Test
+    void shouldDisconnectSubscriberWhenBufferOverflows() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(1) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        hub.subscribe(2L, null, slow);
+
+        hub.publish(request(1L, 1L));
+        assertThat(slow.await(), equalTo(true));
+        hub.publish(request(2L, 1L));
+        hub.publish(request(3L, 1L));
+        hub.publish(request(4L, 1L));
+        release.countDown();
+
+        assertThat(slow.awaitCompleted(), equalTo(true));
+        assertThat(hub.getEvictedCount(), equalTo(1L));
+        assertThat(hub.getSubscriberCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldNotSendLiveRequestsBeforeReplayWhenPublishedWhileReplayLoads() throws InterruptedException {
+        User requestor = User.builder().id(1L).build();
+        when(itemRequestRepository.findByIdGreaterThanAndRequestorIdNotAndRequestorDeletedAtIsNull(Mockito.eq(3L),
+                Mockito.eq(2L), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    hub.publish(request(5L, 1L));
+                    Thread.sleep(100);
+                    return List.of(ItemRequest.builder()
+                            .id(4L)
+                            .description("Дрель")
+                            .requestor(requestor)
+                            .created(LocalDateTime.now())
+                            .build());
+                });
+        RecordingEmitter emitter = new RecordingEmitter(2);
+
+        hub.subscribe(2L, 3L, emitter);
+
+        assertThat(emitter.await(), equalTo(true));
+        assertThat(emitter.ids(), contains("4", "5"));
+    }
+
+    @Test
+    void shouldSendHeartbeatThroughDrainAfterBufferedRequests() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter(2);
+        hub.subscribe(2L, null, emitter);
+
+        hub.publish(request(6L, 1L));
+        hub.heartbeat();
+
+        assertThat(emitter.await(), equalTo(true));
+        assertThat(emitter.events.get(1), startsWith(":ping"));
+    }
+
+    @Test
+    void shouldEvictSubscriberWhenSendBlocksLongerThanWriteTimeout() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(1) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new IOException("Write interrupted");
+                }
+            }
+        };
+        RecordingEmitter other = new RecordingEmitter(1);
+        hub.subscribe(2L, null, stalled);
+        hub.publish(request(1L, 1L));
+        assertThat(stalled.await(), equalTo(true));
+        Thread.sleep(150);
+
+        hub.heartbeat();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(stalled.awaitCompleted(), equalTo(true));
+        assertThat(hub.getEvictedCount(), equalTo(1L));
+        hub.subscribe(3L, null, other);
+        hub.publish(request(2L, 1L));
+        assertThat(other.await(), equalTo(true));
+    }
+
+    private static ItemRequestDto request(Long id, Long requestorId) {
+        return new ItemRequestDto(id, "request " + id, requestorId, LocalDateTime.now(),
+                ItemRequestStatus.OPEN, null);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            events.add(builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .collect(Collectors.joining()));
+            received.countDown();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return received.await(5, TimeUnit.SECONDS);
+        }
+
+        boolean awaitCompleted() throws InterruptedException {
+            return completed.await(5, TimeUnit.SECONDS);
+        }
+
+        List<String> ids() {
+            return events.stream()
+                    .map(event -> event.substring(3, event.indexOf('\n')))
+                    .collect(Collectors.toList());
+        }
+    }
+}
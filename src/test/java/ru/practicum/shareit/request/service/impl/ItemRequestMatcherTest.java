@@ -0,0 +1,64 @@
+package ru.practicum.shareit.request.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.service.impl.ItemTextIndex;
+import ru.practicum.shareit.request.ItemRequestMatchRepository;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.utils.TextIndex;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemRequestMatcherTest {
+
+    private final ItemTextIndex itemTextIndex = Mockito.mock(ItemTextIndex.class);
+    private final ItemRequestMatchRepository itemRequestMatchRepository =
+            Mockito.mock(ItemRequestMatchRepository.class);
+
+    @Test
+    void shouldRecordMatchesOffTheCallingThread() throws InterruptedException {
+        List<TextIndex.Hit> hits = List.of(new TextIndex.Hit(5L, 1.5));
+        when(itemTextIndex.search("Нужна дрель", 3)).thenReturn(hits);
+        ItemRequestMatcher matcher = new ItemRequestMatcher(itemTextIndex, itemRequestMatchRepository, 1, 10, 3);
+        matcher.start();
+
+        matcher.onRequestCreated(new ItemRequestCreatedEvent(1L, 2L, "Нужна дрель", LocalDateTime.now()));
+
+        verify(itemRequestMatchRepository, timeout(5000)).replace(1L, hits);
+        matcher.stop();
+        assertThat(matcher.getMatchedCount(), equalTo(1L));
+    }
+
+    @Test
+    void shouldDropRequestsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        when(itemTextIndex.search(Mockito.anyString(), Mockito.anyInt())).thenAnswer(invocation -> {
+            busy.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        ItemRequestMatcher matcher = new ItemRequestMatcher(itemTextIndex, itemRequestMatchRepository, 1, 1, 3);
+        matcher.start();
+
+        matcher.onRequestCreated(new ItemRequestCreatedEvent(1L, 2L, "first", LocalDateTime.now()));
+        busy.await(5, TimeUnit.SECONDS);
+        matcher.onRequestCreated(new ItemRequestCreatedEvent(2L, 2L, "second", LocalDateTime.now()));
+        matcher.onRequestCreated(new ItemRequestCreatedEvent(3L, 2L, "third", LocalDateTime.now()));
+
+        assertThat(matcher.getQueueDepth(), equalTo(1));
+        assertThat(matcher.getDroppedCount(), equalTo(1L));
+        release.countDown();
+        matcher.stop();
+        assertThat(matcher.getMatchedCount(), equalTo(2L));
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.request.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Transactional
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemRequestServiceImplIntegrationTest {
+
+    private final ItemRequestService itemRequestService;
+    private final UserService userService;
+    private final EntityManager em;
+
+    private User requestor;
+    private User user;
+    private ItemRequest itemRequest;
+
+    @BeforeEach
+    public void beforeEach() {
+        requestor = User.builder().name("requestor").email("requestor@mail.ru").build();
+        user = User.builder().name("user").email("user@mail.ru").build();
+        em.persist(requestor);
+        em.persist(user);
+        itemRequest = ItemRequest.builder()
+                .description("Нужна дрель")
+                .requestor(requestor)
+                .created(LocalDateTime.now())
+                .build();
+        em.persist(itemRequest);
+        em.flush();
+    }
+
+    @Test
+    void shouldGetRequestById() {
+        assertThat(itemRequestService.getRequest(user.getId(), itemRequest.getId()).getId(),
+                equalTo(itemRequest.getId()));
+    }
+
+    @Test
+    void shouldHideRequestOfDeletedRequestor() {
+        userService.delete(requestor.getId());
+        em.flush();
+        em.clear();
+
+        assertThrows(EntityNotFoundException.class,
+                () -> itemRequestService.getRequest(user.getId(), itemRequest.getId()));
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.request.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,32 +9,54 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestJsonRepository;
+import ru.practicum.shareit.request.ItemRequestMatchRepository;
 import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
+import ru.practicum.shareit.utils.TextIndex;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
 class ItemRequestServiceImplTest {
 
+    private static final Set<ItemRequestStatus> OPEN = EnumSet.of(ItemRequestStatus.OPEN);
+
     @Mock
     private UserRepository userRepository;
 
@@ -42,6 +66,27 @@ class ItemRequestServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private ItemRequestJsonRepository itemRequestJsonRepository;
+
+    @Mock
+    private ItemRequestMatchRepository itemRequestMatchRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ItemRequestFeedHub itemRequestFeedHub;
+
+    @Mock
+    private ItemRequestTimeline itemRequestTimeline;
+
+    @Mock
+    private ItemRequestTextIndex itemRequestTextIndex;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
     ItemRequestService itemRequestService;
 
     User user1 = User.builder().id(1L).name("user1").email("newuser1@mail.ru").build();
@@ -80,12 +125,15 @@ class ItemRequestServiceImplTest {
     @BeforeEach
     public void createItemRequestService() {
         itemRequestService =
-                new ItemRequestServiceImpl(userRepository, itemRequestRepository, itemRepository);
+                new ItemRequestServiceImpl(userRepository, new UserExistenceValidator(userRepository, 1000),
+                        itemRequestRepository, itemRepository,
+                        itemRequestJsonRepository, objectMapper, itemRequestMatchRepository, eventPublisher,
+                        itemRequestFeedHub, itemRequestTimeline, itemRequestTextIndex);
     }
 
     @Test
     void createRequest() {
-        when(userRepository.findById(user1.getId()))
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.ofNullable(user1));
         when(itemRequestRepository.save(ItemRequestMapper.toItemRequest(itemRequestDto, user1)))
                 .thenReturn(itemRequestsUser1.get(0));
@@ -98,13 +146,17 @@ class ItemRequestServiceImplTest {
                 hasProperty("requestorId", equalTo(user1.getId()))
         ));
         assertThat(request.getDescription(), equalTo(itemRequestDto.getDescription()));
+        verify(eventPublisher).publishEvent(Mockito.any(ItemRequestCreatedEvent.class));
     }
 
     @Test
     void shouldThrowUserNotFoundWhenUseCreateRequestWithUnknownUser() {
         ItemRequestService itemRequestService =
-                new ItemRequestServiceImpl(userRepository, itemRequestRepository, itemRepository);
-        when(userRepository.findById(user1.getId()))
+                new ItemRequestServiceImpl(userRepository, new UserExistenceValidator(userRepository, 1000),
+                        itemRequestRepository, itemRepository,
+                        itemRequestJsonRepository, objectMapper, itemRequestMatchRepository, eventPublisher,
+                        itemRequestFeedHub, itemRequestTimeline, itemRequestTextIndex);
+        when(userRepository.findByIdAndDeletedAtIsNull(user1.getId()))
                 .thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
@@ -114,12 +166,12 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getUserRequests() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.ofNullable(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(itemRequestRepository.findByRequestorId(Mockito.anyLong(), Mockito.any(Sort.class)))
                 .thenReturn(itemRequestsUser1);
-        when(itemRepository.findByRequestIdIn(Mockito.anyCollection()))
-                .thenReturn(List.of(item));
+        when(itemRepository.findDtoByRequestIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(ItemMapper.toItemDto(item)));
 
         List<ItemRequestDto> userRequests = itemRequestService.getUserRequests(user1.getId());
         for (ItemRequest userRequest : itemRequestsUser1) {
@@ -140,8 +192,8 @@ class ItemRequestServiceImplTest {
 
     @Test
     void shouldThrowUserNotFoundWhenUseUserRequestsWithUnknownUser() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.empty());
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
 
         assertThrows(EntityNotFoundException.class,
                 () -> itemRequestService.getUserRequests(user1.getId()));
@@ -150,12 +202,10 @@ class ItemRequestServiceImplTest {
 
     @Test
     void shouldThrowUserNotFoundWhenUseUserRequestsWithNoneRequest() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.ofNullable(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(itemRequestRepository.findByRequestorId(Mockito.anyLong(), Mockito.any(Sort.class)))
                 .thenReturn(new ArrayList<>());
-        when(itemRepository.findByRequestIdIn(Mockito.anyCollection()))
-                .thenReturn(List.of(item));
 
         List<ItemRequestDto> userRequests = itemRequestService.getUserRequests(user1.getId());
 
@@ -164,11 +214,11 @@ class ItemRequestServiceImplTest {
 
     @Test
     void shouldThrowUserNotFoundWhenUseUserRequestsWithNoneItems() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.ofNullable(user1));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
         when(itemRequestRepository.findByRequestorId(Mockito.anyLong(), Mockito.any(Sort.class)))
                 .thenReturn(itemRequestsUser1);
-        when(itemRepository.findByRequestIdIn(Mockito.anyCollection()))
+        when(itemRepository.findDtoByRequestIdIn(Mockito.anyCollection()))
                 .thenReturn(new ArrayList<>());
 
         List<ItemRequestDto> userRequests = itemRequestService.getUserRequests(user1.getId());
@@ -187,16 +237,16 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getAllRequests() {
-        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by("created").descending());
-        Page<ItemRequest> pages = new PageImpl<>(itemRequestsUser1, pageRequest, itemRequestsUser1.size());
-        when(userRepository.findById(user2.getId()))
-                .thenReturn(Optional.ofNullable(user2));
-        when(itemRequestRepository.findAll(pageRequest))
-                .thenReturn(pages);
-        when(itemRepository.findByRequestIdIn(Mockito.anyCollection()))
-                .thenReturn(List.of(item));
+        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "created", "id"));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.findByRequestorIdNotAndRequestorDeletedAtIsNullAndStatusIn(user2.getId(), OPEN,
+                pageRequest))
+                .thenReturn(itemRequestsUser1);
+        when(itemRepository.findDtoByRequestIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(ItemMapper.toItemDto(item)));
 
-        List<ItemRequestDto> allRequests = itemRequestService.getAllRequests(user2.getId(), 0, 20);
+        List<ItemRequestDto> allRequests = itemRequestService.getAllRequests(user2.getId(), 0, 20, false);
 
         for (ItemRequest userRequest : itemRequestsUser1) {
             assertThat(allRequests, hasItem(allOf(
@@ -215,38 +265,98 @@ class ItemRequestServiceImplTest {
 
     @Test
     void shouldEmptyListWhenUserHasOnlyHisRequests() {
-        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by("created").descending());
-        Page<ItemRequest> pages = new PageImpl<>(itemRequestsUser1, pageRequest, itemRequestsUser1.size());
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.ofNullable(user1));
-        when(itemRequestRepository.findAll(pageRequest))
-                .thenReturn(pages);
-        when(itemRepository.findByRequestIdIn(Mockito.anyCollection()))
-                .thenReturn(List.of(item));
+        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "created", "id"));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.findByRequestorIdNotAndRequestorDeletedAtIsNullAndStatusIn(user1.getId(), OPEN,
+                pageRequest))
+                .thenReturn(List.of());
 
-        List<ItemRequestDto> allRequests = itemRequestService.getAllRequests(user1.getId(), 0, 20);
+        List<ItemRequestDto> allRequests = itemRequestService.getAllRequests(user1.getId(), 0, 20, false);
 
         assertThat(allRequests, equalTo(new ArrayList<>()));
     }
 
+    @Test
+    void shouldGetRequestsBeforeCursorWhenUseGetAllRequestsAfter() {
+        ItemRequest last = itemRequestsUser1.get(0);
+        LocalDateTime created = last.getCreated().withNano(0);
+        String after = new ItemRequestCursor(created, last.getId()).encode();
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.findByRequestorIdNotBefore(user2.getId(), OPEN, created, last.getId(),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "created", "id"))))
+                .thenReturn(List.of(itemRequestsUser1.get(1)));
+        when(itemRepository.findDtoByRequestIdIn(List.of(itemRequestsUser1.get(1).getId())))
+                .thenReturn(List.of());
+
+        List<ItemRequestDto> allRequests = itemRequestService.getAllRequestsAfter(user2.getId(), after, 20, false);
+
+        assertThat(allRequests, hasSize(1));
+        assertThat(allRequests.get(0).getId(), equalTo(itemRequestsUser1.get(1).getId()));
+    }
+
+    @Test
+    void shouldThrowBadRequestWhenUseGetAllRequestsAfterWithInvalidCursor() {
+        assertThrows(BadRequestException.class,
+                () -> itemRequestService.getAllRequestsAfter(user2.getId(), "not-a-cursor", 20, false));
+    }
+
+    @Test
+    void shouldNotQueryRequestsWhenPageIsInTimeline() {
+        List<ItemRequestDto> buffered = List.of(ItemRequestMapper.toDto(itemRequestsUser1.get(0)));
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRequestTimeline.page(user2.getId(), 0, 20))
+                .thenReturn(Optional.of(buffered));
+
+        assertThat(itemRequestService.getAllRequests(user2.getId(), 0, 20, false), equalTo(buffered));
+        verifyNoInteractions(itemRequestRepository, itemRepository);
+    }
+
+    @Test
+    void shouldReturnRequestsInRelevanceOrderWhenUseSearchRequests() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRequestTextIndex.search(user2.getId(), "учебник", 2))
+                .thenReturn(List.of(new TextIndex.Hit(1L, 2.0), new TextIndex.Hit(2L, 1.0)));
+        when(itemRequestRepository.findAllById(List.of(2L)))
+                .thenReturn(List.of(itemRequestsUser1.get(1)));
+        when(itemRepository.findDtoByRequestIdIn(List.of(2L)))
+                .thenReturn(List.of());
+
+        List<ItemRequestDto> found = itemRequestService.searchRequests(user2.getId(), "учебник", 1, 1);
+
+        assertThat(found, contains(hasProperty("id", equalTo(2L))));
+    }
+
+    @Test
+    void shouldNotSearchWhenTextIsBlank() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+
+        assertThat(itemRequestService.searchRequests(user2.getId(), " ", 0, 10), empty());
+        verifyNoInteractions(itemRequestTextIndex);
+    }
+
     @Test
     void shouldThrowEntityNotFoundExceptionWhenUseGetAllRequestsWithUnknownUser() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.empty());
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
 
         assertThrows(EntityNotFoundException.class,
-                () -> itemRequestService.getAllRequests(user1.getId(), 0, 20));
+                () -> itemRequestService.getAllRequests(user1.getId(), 0, 20, false));
     }
 
 
     @Test
     void getRequest() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.ofNullable(user1));
-        when(itemRequestRepository.findById(Mockito.anyLong()))
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.findByIdAndRequestorDeletedAtIsNull(Mockito.anyLong()))
                 .thenReturn(Optional.ofNullable(itemRequestsUser1.get(0)));
-        when(itemRepository.findByRequestId(Mockito.anyLong()))
-                .thenReturn(List.of(item));
+        when(itemRepository.findDtoByRequestIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(ItemMapper.toItemDto(item)));
 
         ItemRequestDto request = itemRequestService.getRequest(user1.getId(), itemRequestsUser1.get(1).getId());
 
@@ -266,8 +376,8 @@ class ItemRequestServiceImplTest {
 
     @Test
     void shouldThrowEntityNotFoundExceptionWhenUseGetRequestWithUnknownUser() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.empty());
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
 
         assertThrows(EntityNotFoundException.class,
                 () -> itemRequestService.getRequest(user1.getId(), 1L));
@@ -276,13 +386,92 @@ class ItemRequestServiceImplTest {
 
     @Test
     void shouldThrowEntityNotFoundExceptionWhenUseGetRequestWithUnknownRequest() {
-        when(userRepository.findById(user1.getId()))
-                .thenReturn(Optional.ofNullable(user1));
-        when(itemRequestRepository.findById(Mockito.anyLong()))
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.findByIdAndRequestorDeletedAtIsNull(Mockito.anyLong()))
                 .thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
                 () -> itemRequestService.getRequest(user1.getId(), 1L));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldWriteRowsAssembledByDatabaseWhenUseStreamAllRequests() throws Exception {
+        ItemRequestRow row = new ItemRequestRow(1L, "Учебник китайского", 1L,
+                LocalDateTime.of(2023, 1, 10, 12, 0, 5), "OPEN", "[{\"id\":1,\"name\":\"Учебник\"}]");
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<ItemRequestRow> action = invocation.getArgument(4);
+            action.accept(row);
+            action.accept(row);
+            return null;
+        }).when(itemRequestJsonRepository).findByRequestorIdNot(Mockito.eq(user2.getId()), Mockito.eq(OPEN), Mockito.eq(10),
+                Mockito.eq(10), Mockito.any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        itemRequestService.streamAllRequests(user2.getId(), 15, 10, null, false).writeTo(out);
+
+        String request = "{\"id\":1,\"description\":\"Учебник китайского\",\"requestorId\":1,"
+                + "\"created\":\"2023-01-10T12:00:05\",\"status\":\"OPEN\","
+                + "\"items\":[{\"id\":1,\"name\":\"Учебник\"}]}";
+        assertThat(out.toString(StandardCharsets.UTF_8), equalTo("[" + request + "," + request + "]"));
+    }
+
+    @Test
+    void shouldThrowEntityNotFoundExceptionWhenUseStreamUserRequestsWithUnknownUser() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class,
+                () -> itemRequestService.streamUserRequests(user1.getId()));
+        verifyNoInteractions(itemRequestJsonRepository);
+    }
+
+    @Test
+    void shouldThrowEntityNotFoundExceptionWhenUseStreamRequestWithUnknownRequest() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(true);
+        when(itemRequestJsonRepository.findById(1L))
+                .thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> itemRequestService.streamRequest(user1.getId(), 1L));
+    }
+
+    @Test
+    void shouldReturnMatchedItemsWhenUseGetMatches() {
+        ItemDto match = ItemMapper.toItemDto(item);
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.existsById(1L))
+                .thenReturn(true);
+        when(itemRequestMatchRepository.findItems(1L))
+                .thenReturn(List.of(match));
+
+        assertThat(itemRequestService.getMatches(user2.getId(), 1L), contains(match));
+    }
+
+    @Test
+    void shouldThrowEntityNotFoundExceptionWhenUseGetMatchesWithUnknownRequest() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(user2.getId()))
+                .thenReturn(true);
+        when(itemRequestRepository.existsById(1L))
+                .thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class,
+                () -> itemRequestService.getMatches(user2.getId(), 1L));
+        verifyNoInteractions(itemRequestMatchRepository);
+    }
+
+    @Test
+    void shouldThrowEntityNotFoundExceptionWhenUseSubscribeWithUnknownUser() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(user1.getId()))
+                .thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class,
+                () -> itemRequestService.subscribe(user1.getId(), null));
+        verifyNoInteractions(itemRequestFeedHub);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.request.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+
+class ItemRequestTextIndexTest {
+
+    private final ItemRequestRepository itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
+
+    private final ItemRequestTextIndex index = new ItemRequestTextIndex(itemRequestRepository);
+
+    @Test
+    void shouldFindRequestsOfOtherUsersBestFirst() {
+        index.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "Нужна лестница", LocalDateTime.now()));
+        index.onRequestCreated(new ItemRequestCreatedEvent(2L, 1L, "Лестница или стремянка, лестница высокая",
+                LocalDateTime.now()));
+        index.onRequestCreated(new ItemRequestCreatedEvent(3L, 2L, "Лестница", LocalDateTime.now()));
+        index.onRequestCreated(new ItemRequestCreatedEvent(4L, 1L, "Дрель", LocalDateTime.now()));
+
+        assertThat(index.search(2L, "кому нужна лестница", 10), contains(
+                hasProperty("id", equalTo(1L)),
+                hasProperty("id", equalTo(2L))));
+        assertThat(index.search(1L, "лестница", 10), contains(hasProperty("id", equalTo(3L))));
+    }
+
+    @Test
+    void shouldForgetClosedRequestsAndRequestsOfDeletedUsers() {
+        index.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "Лестница", LocalDateTime.now()));
+        index.onRequestCreated(new ItemRequestCreatedEvent(2L, 1L, "Лестница", LocalDateTime.now()));
+        index.onRequestCreated(new ItemRequestCreatedEvent(3L, 3L, "Лестница", LocalDateTime.now()));
+
+        index.remove(List.of(1L));
+        index.onUserDeleted(new UserDeletedEvent(3L));
+
+        assertThat(index.search(2L, "лестница", 10), contains(hasProperty("id", equalTo(2L))));
+        assertThat(index.size(), equalTo(1));
+        assertThat(index.search(1L, "лестница", 10), empty());
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.request.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemDeletedEvent;
+import ru.practicum.shareit.item.event.ItemSavedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.enums.ItemRequestStatus;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.when;
+
+class ItemRequestTimelineTest {
+
+    private final ItemRequestRepository itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @Test
+    void shouldServeNewestRequestsOfOtherUsersFromMemory() {
+        ItemRequestTimeline timeline = loadedTimeline(10, List.of(request(1L, 1L, now.minusDays(1))), 1);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(3L, 2L, "Дрель", now));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(2L, 1L, "Учебник", now.minusHours(1)));
+
+        Optional<List<ItemRequestDto>> page = timeline.page(2L, 0, 10);
+
+        assertThat(page.isPresent(), equalTo(true));
+        assertThat(page.get(), contains(
+                hasProperty("id", equalTo(2L)),
+                hasProperty("id", equalTo(1L))));
+        assertThat(timeline.page(1L, 0, 10).get(), contains(hasProperty("id", equalTo(3L))));
+        assertThat(timeline.page(3L, 1, 1).get(), contains(hasProperty("id", equalTo(2L))));
+    }
+
+    @Test
+    void shouldAttachItemsOfRequestsWhenItemIsSaved() {
+        ItemRequestTimeline timeline = loadedTimeline(10, List.of(), 0);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "Дрель", now));
+
+        timeline.onItemSaved(new ItemSavedEvent(5L, "Дрель", "Ударная", true, null, null, 2L, 1L));
+        timeline.onItemSaved(new ItemSavedEvent(5L, "Дрель", "Аккумуляторная", true, null, null, 2L, 1L));
+        timeline.onItemSaved(new ItemSavedEvent(6L, "Молоток", "Молоток", true, null, null, 2L, null));
+
+        List<ItemDto> items = timeline.page(2L, 0, 10).get().get(0).getItems();
+        assertThat(items, contains(allOf(
+                hasProperty("id", equalTo(5L)),
+                hasProperty("description", equalTo("Аккумуляторная")),
+                hasProperty("requestId", equalTo(1L)))));
+    }
+
+    @Test
+    void shouldFallBackWhenPageRunsPastEvictedRequests() {
+        ItemRequestTimeline timeline = loadedTimeline(2, List.of(), 0);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "first", now.minusHours(3)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(2L, 1L, "second", now.minusHours(2)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(3L, 1L, "third", now.minusHours(1)));
+
+        assertThat(timeline.size(), equalTo(2));
+        assertThat(timeline.page(2L, 0, 2).get(), contains(
+                hasProperty("id", equalTo(3L)),
+                hasProperty("id", equalTo(2L))));
+        assertThat(timeline.page(2L, 2, 2).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void shouldServeRequestsAfterCursor() {
+        ItemRequestTimeline timeline = loadedTimeline(10, List.of(), 0);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "first", now.minusHours(2)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(2L, 1L, "second", now.minusHours(1)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(3L, 1L, "third", now.minusHours(1)));
+
+        ItemRequestCursor cursor = new ItemRequestCursor(now.minusHours(1), 3L);
+
+        assertThat(timeline.pageAfter(2L, cursor, 10).get(), contains(
+                hasProperty("id", equalTo(2L)),
+                hasProperty("id", equalTo(1L))));
+    }
+
+    @Test
+    void shouldDropRequestsOfDeletedUser() {
+        ItemRequestTimeline timeline = loadedTimeline(10, List.of(), 0);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "first", now.minusHours(2)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(2L, 3L, "second", now.minusHours(1)));
+
+        timeline.onUserDeleted(new UserDeletedEvent(3L));
+
+        assertThat(timeline.page(2L, 0, 10).get(), contains(hasProperty("id", equalTo(1L))));
+    }
+
+    @Test
+    void shouldDropItemsOfDeletedUserAndDeletedItems() {
+        ItemRequestTimeline timeline = loadedTimeline(10, List.of(), 0);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "Дрель", now));
+        timeline.onItemSaved(new ItemSavedEvent(5L, "Дрель", "Ударная", true, null, null, 2L, 1L));
+        timeline.onItemSaved(new ItemSavedEvent(6L, "Дрель", "Аккумуляторная", true, null, null, 3L, 1L));
+        timeline.onItemSaved(new ItemSavedEvent(7L, "Дрель", "Сетевая", true, null, null, 4L, 1L));
+
+        timeline.onUserDeleted(new UserDeletedEvent(3L));
+        timeline.onItemDeleted(new ItemDeletedEvent(7L));
+
+        assertThat(timeline.page(2L, 0, 10).get().get(0).getItems(), contains(hasProperty("id", equalTo(5L))));
+    }
+
+    @Test
+    void shouldDropClosedRequests() {
+        ItemRequestTimeline timeline = loadedTimeline(10, List.of(), 0);
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(1L, 1L, "first", now.minusHours(3)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(2L, 1L, "second", now.minusHours(2)));
+        timeline.onRequestCreated(new ItemRequestCreatedEvent(3L, 1L, "third", now.minusHours(1)));
+
+        timeline.remove(List.of(1L, 3L));
+
+        assertThat(timeline.size(), equalTo(1));
+        assertThat(timeline.page(2L, 0, 10).get(), contains(allOf(
+                hasProperty("id", equalTo(2L)),
+                hasProperty("status", equalTo(ItemRequestStatus.OPEN)))));
+    }
+
+    private ItemRequestTimeline loadedTimeline(int capacity, List<ItemRequest> stored, long total) {
+        Page<ItemRequest> page = new PageImpl<>(stored, Pageable.ofSize(capacity), total);
+        when(itemRequestRepository.findByStatusAndRequestorDeletedAtIsNull(Mockito.eq(ItemRequestStatus.OPEN),
+                Mockito.any(Pageable.class)))
+                .thenReturn(page);
+        ItemRequestTimeline timeline = new ItemRequestTimeline(itemRequestRepository, itemRepository, capacity);
+        timeline.load();
+        return timeline;
+    }
+
+    private static ItemRequest request(Long id, Long requestorId, LocalDateTime created) {
+        return ItemRequest.builder()
+                .id(id)
+                .description("request " + id)
+                .requestor(User.builder().id(requestorId).build())
+                .created(created)
+                .build();
+    }
+}
@@ -9,18 +9,26 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.MultiGetResponse;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
@@ -118,17 +126,81 @@ class UserControllerTest {
 
     @Test
     void shouldUserGetAllWhenUseGetUsers() throws Exception {
-        when(userService.getAll())
+        when(userService.getPage(0L, 100))
                 .thenReturn(List.of(userDto1));
         this.mockMvc.perform(get("/users")
                         .accept("*/*"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id").value(userDto1.getId()))
                 .andExpect(jsonPath("$[0].name").value(userDto1.getName()))
                 .andExpect(jsonPath("$[0].email").value(userDto1.getEmail()));
     }
 
+    @Test
+    void shouldReturnNextCursorWhenUseGetUsersWithFullPage() throws Exception {
+        when(userService.getPage(0L, 1))
+                .thenReturn(List.of(userDto1));
+
+        this.mockMvc.perform(get("/users")
+                        .param("size", "1")
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "1"));
+    }
+
+    @Test
+    void shouldBadRequestWhenUseGetUsersWithTooLargePage() throws Exception {
+        this.mockMvc.perform(get("/users")
+                        .param("size", "1001")
+                        .accept("*/*"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldGetUsersByIdsWhenUseGetUsersWithIds() throws Exception {
+        when(userService.getByIds(List.of(1L, 7L)))
+                .thenReturn(new MultiGetResponse<>(List.of(userDto1), List.of(7L)));
+
+        this.mockMvc.perform(get("/users")
+                        .param("ids", "1,7")
+                        .accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found", hasSize(1)))
+                .andExpect(jsonPath("$.found[0].id").value(userDto1.getId()))
+                .andExpect(jsonPath("$.missing[0]").value(7));
+    }
+
+    @Test
+    void shouldBadRequestWhenUseGetUsersWithTooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, MultiGetResponse.MAX_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        this.mockMvc.perform(get("/users")
+                        .param("ids", ids)
+                        .accept("*/*"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamNdjsonWhenUseExport() throws Exception {
+        StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+        when(userService.exportAll())
+                .thenReturn(body);
+
+        MvcResult result = this.mockMvc.perform(get("/users/export")
+                        .accept("*/*"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
     @Test
     void deleteUser() throws Exception {
 
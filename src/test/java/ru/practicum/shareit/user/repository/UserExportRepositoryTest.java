@@ -0,0 +1,42 @@
+package ru.practicum.shareit.user.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase
+@Import(UserExportRepository.class)
+class UserExportRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private UserExportRepository userExportRepository;
+
+    @Test
+    void shouldReadAllUsersInIdOrderWhenUseFindAll() {
+        User first = em.persist(User.builder().name("user1").email("user1@mail.ru").build());
+        User second = em.persist(User.builder().name("user2").email("user2@mail.ru").build());
+        em.flush();
+        List<UserDto> users = new ArrayList<>();
+
+        userExportRepository.findAll(users::add);
+
+        assertThat(users, contains(
+                allOf(hasProperty("id", equalTo(first.getId())), hasProperty("name", equalTo("user1"))),
+                allOf(hasProperty("id", equalTo(second.getId())), hasProperty("email", equalTo("user2@mail.ru")))));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.user.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserExistenceValidatorTest {
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+
+    private final UserExistenceValidator validator = new UserExistenceValidator(userRepository, 100);
+
+    @Test
+    void shouldQueryKnownUserOnlyOnce() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(1L))
+                .thenReturn(true);
+
+        validator.validate(1L);
+        validator.validate(1L);
+
+        verify(userRepository, times(1)).existsByIdAndDeletedAtIsNull(1L);
+        assertThat(validator.getHitCount(), equalTo(1L));
+    }
+
+    @Test
+    void shouldNotQueryAddedUser() {
+        validator.added(2L);
+
+        validator.validate(2L);
+
+        verify(userRepository, never()).existsByIdAndDeletedAtIsNull(2L);
+    }
+
+    @Test
+    void shouldThrowEntityNotFoundWhenUserIsDeleted() {
+        validator.added(3L);
+        validator.deleted(3L);
+
+        assertThrows(EntityNotFoundException.class, () -> validator.validate(3L));
+        verify(userRepository).existsByIdAndDeletedAtIsNull(3L);
+    }
+
+    @Test
+    void shouldAlwaysQueryIdsAboveCachedRange() {
+        when(userRepository.existsByIdAndDeletedAtIsNull(500L))
+                .thenReturn(true);
+
+        validator.validate(500L);
+        validator.validate(500L);
+
+        verify(userRepository, times(2)).existsByIdAndDeletedAtIsNull(500L);
+    }
+}
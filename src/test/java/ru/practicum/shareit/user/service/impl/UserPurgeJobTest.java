@@ -0,0 +1,140 @@
+package ru.practicum.shareit.user.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.ChangeTracker;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase
+@Import({UserPurgeJob.class, ChangeTracker.class})
+@TestPropertySource(properties = "shareit.users.purge.batch-size=2")
+class UserPurgeJobTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserPurgeJob userPurgeJob;
+
+    private User deleted;
+    private User other;
+    private Item otherItem;
+    private Item answer;
+    private Comment kept;
+
+    @BeforeEach
+    public void beforeEach() {
+        LocalDateTime now = LocalDateTime.now();
+        deleted = em.persist(User.builder().name("deleted").deletedAt(now).build());
+        other = em.persist(User.builder().name("other").email("other@mail.ru").build());
+        ItemRequest request = em.persist(ItemRequest.builder()
+                .description("Дрель")
+                .requestor(deleted)
+                .created(now)
+                .build());
+        otherItem = em.persist(item("Отвертка", other, null));
+        answer = em.persist(item("Дрель", other, request));
+        for (int i = 0; i < 3; i++) {
+            Item item = em.persist(item("Лестница " + i, deleted, null));
+            em.persist(booking(item, other, now));
+            em.persist(comment(item, other, now));
+            em.persist(booking(otherItem, deleted, now));
+            em.persist(comment(otherItem, deleted, now));
+        }
+        kept = em.persist(comment(otherItem, other, now.minusDays(1)));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void shouldPurgeDependentRowsOfDeletedUserAndKeepOthers() {
+        long purgedUsers = userPurgeJob.getPurgedUsers();
+        long purgedRows = userPurgeJob.getPurgedRows();
+
+        userPurgeJob.purge();
+
+        assertThat(count("SELECT COUNT(*) FROM users WHERE id = ?", deleted.getId()), equalTo(0L));
+        assertThat(count("SELECT COUNT(*) FROM items WHERE owner = ?", deleted.getId()), equalTo(0L));
+        assertThat(count("SELECT COUNT(*) FROM requests WHERE requestor = ?", deleted.getId()), equalTo(0L));
+        assertThat(count("SELECT COUNT(*) FROM bookings"), equalTo(0L));
+        assertThat(count("SELECT COUNT(*) FROM comments"), equalTo(1L));
+        assertThat(count("SELECT COUNT(*) FROM items WHERE owner = ?", other.getId()), equalTo(2L));
+        assertThat(jdbcTemplate.queryForObject("SELECT request FROM items WHERE id = ?", Long.class,
+                answer.getId()), nullValue());
+        assertThat(userPurgeJob.getPurgedUsers() - purgedUsers, equalTo(1L));
+        assertThat(userPurgeJob.getPurgedRows() - purgedRows, equalTo(18L));
+        assertThat(userPurgeJob.getPendingUsers(), equalTo(0L));
+    }
+
+    @Test
+    void shouldRecomputeCommentStatsAndVersionOfOtherUsersItems() {
+        LocalDateTime before = jdbcTemplate.queryForObject("SELECT last_modified FROM items WHERE id = ?",
+                LocalDateTime.class, otherItem.getId());
+
+        userPurgeJob.purge();
+
+        Map<String, Object> stats = jdbcTemplate.queryForMap("SELECT comment_count, last_comment_id, last_modified "
+                + "FROM items WHERE id = ?", otherItem.getId());
+        assertThat(((Number) stats.get("comment_count")).intValue(), equalTo(1));
+        assertThat(((Number) stats.get("last_comment_id")).longValue(), equalTo(kept.getId()));
+        assertThat(((Timestamp) stats.get("last_modified")).toLocalDateTime(), greaterThan(before));
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+
+    private static Item item(String name, User owner, ItemRequest request) {
+        return Item.builder()
+                .name(name)
+                .description(name)
+                .available(true)
+                .owner(owner)
+                .request(request)
+                .build();
+    }
+
+    private static Booking booking(Item item, User booker, LocalDateTime now) {
+        return Booking.builder()
+                .start(now.minusDays(2))
+                .end(now.minusDays(1))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+
+    private static Comment comment(Item item, User author, LocalDateTime now) {
+        return Comment.builder()
+                .text("Отлично")
+                .item(item)
+                .author(author)
+                .created(now)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,18 +8,35 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserExportRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserEmailFilter;
+import ru.practicum.shareit.user.service.UserExistenceValidator;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.ChangeTracker;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,6 +47,21 @@ class UserServiceImplTest {
 @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private ChangeTracker changeTracker;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserExportRepository userExportRepository;
+
+    @Mock
+    private UserEmailFilter userEmailFilter;
+
     private UserService userService;
     User user1 = User.builder().id(1L).name("user1").email("newuser1@mail.ru").build();
     User user1Updated = User.builder().id(1L).name("user1Update").email("newuser1update@mail.ru").build();
@@ -36,7 +69,8 @@ class UserServiceImplTest {
 
     @BeforeEach
     public void beforeEach() {
-        userService = new UserServiceImpl(userRepository);
+        userService = new UserServiceImpl(userRepository, itemRepository, changeTracker, eventPublisher, userExportRepository,
+                new ObjectMapper(), new UserExistenceValidator(userRepository, 1000), userEmailFilter);
     }
 
     @Test
@@ -55,7 +89,7 @@ class UserServiceImplTest {
     void shouldAllFieldsUpdateWhenUseUpdate() {
         when(userRepository.save(any(User.class)))
                 .thenReturn(user1Updated);
-        when(userRepository.findById(Mockito.anyLong()))
+        when(userRepository.findByIdAndDeletedAtIsNull(Mockito.anyLong()))
                 .thenReturn(Optional.ofNullable(user1));
         UserDto newUser = userService.update(user1.getId(), UserDto.builder()
                 .name(user1Updated.getName())
@@ -80,7 +114,7 @@ class UserServiceImplTest {
 
         when(userRepository.save(any(User.class)))
                 .thenReturn(updatedUser);
-        when(userRepository.findById(Mockito.anyLong()))
+        when(userRepository.findByIdAndDeletedAtIsNull(Mockito.anyLong()))
                 .thenReturn(Optional.ofNullable(user1));
         UserDto newUser = userService.update(user1.getId(), UserDto.builder()
                 .email(user1Updated.getEmail())
@@ -106,7 +140,7 @@ class UserServiceImplTest {
 
         when(userRepository.save(any(User.class)))
                 .thenReturn(updatedUser);
-        when(userRepository.findById(Mockito.anyLong()))
+        when(userRepository.findByIdAndDeletedAtIsNull(Mockito.anyLong()))
                 .thenReturn(Optional.ofNullable(user1));
         UserDto newUser = userService.update(user1.getId(), UserDto.builder()
                 .name(updatedUser.getName())
@@ -124,10 +158,85 @@ class UserServiceImplTest {
 
     @Test
     void shouldThrowWhenUseUpdateWithUnknownUser() {
-        when(userRepository.findById(Mockito.anyLong()))
+        when(userRepository.findByIdAndDeletedAtIsNull(Mockito.anyLong()))
                 .thenReturn(Optional.empty());
         assertThrows(EntityNotFoundException.class,
                 () -> userService.update(user1.getId(), user1Dto.toBuilder().build()));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldNotLookUpEmailWhenFilterRulesItOut() {
+        when(userRepository.save(any(User.class)))
+                .thenReturn(user1);
+
+        userService.add(user1Dto);
+
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userEmailFilter).added(user1.getEmail());
+    }
+
+    @Test
+    void shouldConflictWithoutInsertWhenEmailIsTaken() {
+        when(userEmailFilter.mightExist(user1Dto.getEmail()))
+                .thenReturn(true);
+        when(userRepository.existsByEmail(user1Dto.getEmail()))
+                .thenReturn(true);
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.add(user1Dto));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldAddUserWhenFilterHitIsFalsePositive() {
+        when(userEmailFilter.mightExist(user1Dto.getEmail()))
+                .thenReturn(true);
+        when(userRepository.existsByEmail(user1Dto.getEmail()))
+                .thenReturn(false);
+        when(userRepository.save(any(User.class)))
+                .thenReturn(user1);
+
+        assertThat(userService.add(user1Dto).getId(), equalTo(user1.getId()));
+    }
+
+    @Test
+    void shouldMarkUserDeletedAndPublishEventWhenUseDelete() {
+        User user = user1.toBuilder().build();
+        when(userRepository.findByIdAndDeletedAtIsNull(user.getId()))
+                .thenReturn(Optional.of(user));
+
+        userService.delete(user.getId());
+
+        verify(userRepository, never()).delete(any());
+        verify(userRepository).save(argThat(saved -> saved.getDeletedAt() != null && saved.getEmail() == null));
+        verify(eventPublisher).publishEvent(any(UserDeletedEvent.class));
+    }
+
+    @Test
+    void shouldGetUsersAfterIdWhenUseGetPage() {
+        when(userRepository.findByIdGreaterThanAndDeletedAtIsNull(1L, PageRequest.of(0, 2, Sort.by("id"))))
+                .thenReturn(List.of(user1Updated.toBuilder().id(2L).build()));
+
+        List<UserDto> users = userService.getPage(1L, 2);
+
+        assertThat(users, contains(allOf(
+                hasProperty("id", equalTo(2L)),
+                hasProperty("name", equalTo(user1Updated.getName())))));
+    }
+
+    @Test
+    void shouldWriteUserPerLineWhenUseExportAll() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<UserDto> action = invocation.getArgument(0);
+            action.accept(UserDto.builder().id(1L).name("user1").email("newuser1@mail.ru").build());
+            action.accept(UserDto.builder().id(2L).name("user2").email("newuser2@mail.ru").build());
+            return null;
+        }).when(userExportRepository).findAll(any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        userService.exportAll().writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8), equalTo(
+                "{\"id\":1,\"name\":\"user1\",\"email\":\"newuser1@mail.ru\"}\n"
+                        + "{\"id\":2,\"name\":\"user2\",\"email\":\"newuser2@mail.ru\"}\n"));
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongHashMapTest {
+
+    @Test
+    void shouldKeepAllMappingsWhenGrowing() {
+        LongHashMap<String> map = new LongHashMap<>(2);
+        for (long key = -500; key < 500; key++) {
+            map.put(key * 4096, "value" + key);
+        }
+
+        assertThat(map.size(), equalTo(1000));
+        for (long key = -500; key < 500; key++) {
+            assertThat(map.get(key * 4096), equalTo("value" + key));
+        }
+        assertThat(map.get(1), nullValue());
+    }
+
+    @Test
+    void shouldReplaceValueAndComputeOnlyAbsentKeys() {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertThat(map.put(0, "zero"), nullValue());
+        assertThat(map.put(0, "null"), equalTo("zero"));
+        assertThat(map.computeIfAbsent(0, key -> "other"), equalTo("null"));
+        assertThat(map.computeIfAbsent(7, key -> "seven"), equalTo("seven"));
+        assertThat(map.size(), equalTo(2));
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+}
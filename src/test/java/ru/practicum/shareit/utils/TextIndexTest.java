@@ -0,0 +1,51 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+
+class TextIndexTest {
+
+    @Test
+    void shouldTokenizeIntoLowerCaseWords() {
+        assertThat(TextIndex.tokenize("Дрель Makita, 18V — в аренду!"),
+                contains("дрель", "makita", "18v", "аренду"));
+    }
+
+    @Test
+    void shouldRankDocumentsWithRareAndRepeatedTermsFirst() {
+        TextIndex index = new TextIndex();
+        index.put(1, "Дрель аккумуляторная");
+        index.put(2, "Дрель ударная, дрель для бетона");
+        index.put(3, "Отвертка аккумуляторная");
+        index.put(4, "Учебник китайского");
+
+        List<TextIndex.Hit> hits = index.search("нужна дрель для бетона", 10);
+
+        assertThat(hits, contains(
+                hasProperty("id", equalTo(2L)),
+                hasProperty("id", equalTo(1L))));
+        assertThat(index.search("аккумуляторная дрель", 1), contains(hasProperty("id", equalTo(1L))));
+    }
+
+    @Test
+    void shouldForgetOldTextWhenDocumentIsReplacedOrRemoved() {
+        TextIndex index = new TextIndex();
+        index.put(1, "Дрель");
+        index.put(1, "Отвертка");
+
+        assertThat(index.search("дрель", 10), empty());
+        assertThat(index.search("отвертка", 10), contains(hasProperty("id", equalTo(1L))));
+
+        index.remove(1);
+
+        assertThat(index.size(), equalTo(0));
+        assertThat(index.search("отвертка", 10), empty());
+    }
+}